@@ -0,0 +1,107 @@
+package com.example.carsharingapp.benchmark;
+
+import com.example.carsharingapp.dto.car.CarResponseDto;
+import com.example.carsharingapp.dto.payment.PaymentResponseDto;
+import com.example.carsharingapp.dto.rental.RentalResponseDto;
+import com.example.carsharingapp.dto.user.UserResponseDto;
+import com.example.carsharingapp.mapper.CarMapper;
+import com.example.carsharingapp.mapper.PaymentMapper;
+import com.example.carsharingapp.mapper.RentalMapper;
+import com.example.carsharingapp.mapper.UserMapper;
+import com.example.carsharingapp.mapper.impl.CarMapperImpl;
+import com.example.carsharingapp.mapper.impl.PaymentMapperImpl;
+import com.example.carsharingapp.mapper.impl.RentalMapperImpl;
+import com.example.carsharingapp.mapper.impl.UserMapperImpl;
+import com.example.carsharingapp.model.Car;
+import com.example.carsharingapp.model.CarType;
+import com.example.carsharingapp.model.Payment;
+import com.example.carsharingapp.model.PaymentStatus;
+import com.example.carsharingapp.model.PaymentType;
+import com.example.carsharingapp.model.Rental;
+import com.example.carsharingapp.model.Role;
+import com.example.carsharingapp.model.User;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private final CarMapper carMapper = new CarMapperImpl();
+    private final RentalMapper rentalMapper = new RentalMapperImpl();
+    private final PaymentMapper paymentMapper = new PaymentMapperImpl();
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private Car car;
+    private User user;
+    private Rental rental;
+    private Payment payment;
+
+    @Setup
+    public void setUp() {
+        car = new Car();
+        car.setId(1L);
+        car.setModel("Corolla");
+        car.setBrand("Toyota");
+        car.setType(CarType.SEDAN);
+        car.setInventory(3);
+        car.setDailyFee(new BigDecimal("49.99"));
+
+        user = new User();
+        user.setId(2L);
+        user.setEmail("bob@example.com");
+        user.setFirstName("Bob");
+        user.setLastName("Smith");
+        user.setRole(Role.ROLE_CUSTOMER);
+
+        rental = new Rental();
+        rental.setId(3L);
+        rental.setCar(car);
+        rental.setUser(user);
+        rental.setRentalDate(LocalDate.of(2026, 3, 1));
+        rental.setReturnDate(LocalDate.of(2026, 3, 8));
+        rental.setActive(true);
+
+        payment = new Payment();
+        payment.setId(4L);
+        payment.setRental(rental);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setType(PaymentType.PAYMENT);
+        payment.setAmount(new BigDecimal("349.93"));
+        payment.setSessionUrl("https://checkout.stripe.com/c/pay/cs_test_1");
+    }
+
+    @Benchmark
+    public CarResponseDto carToDto() {
+        return carMapper.toDto(car);
+    }
+
+    @Benchmark
+    public RentalResponseDto rentalToDto() {
+        return rentalMapper.toDto(rental);
+    }
+
+    @Benchmark
+    public PaymentResponseDto paymentToDto() {
+        return paymentMapper.toDto(payment);
+    }
+
+    @Benchmark
+    public UserResponseDto userToDto() {
+        return userMapper.toDto(user);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.carsharingapp.benchmark;
+
+import com.example.carsharingapp.dto.rental.RentalResponseDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<RentalResponseDto> page;
+
+    @Setup
+    public void setUp() {
+        // same defaults Spring MVC applies: java.time support, ISO dates
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<RentalResponseDto> rentals = new ArrayList<>(pageSize);
+        LocalDate start = LocalDate.of(2026, 3, 1);
+        for (long i = 0; i < pageSize; i++) {
+            rentals.add(new RentalResponseDto(i, i % 7, i % 11, start.plusDays(i),
+                    start.plusDays(i + 3), null, true));
+        }
+        page = new PageImpl<>(rentals, PageRequest.of(0, pageSize), pageSize * 5L);
+    }
+
+    @Benchmark
+    public byte[] serializeRentalPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
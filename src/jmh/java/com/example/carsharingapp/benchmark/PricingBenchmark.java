@@ -0,0 +1,64 @@
+package com.example.carsharingapp.benchmark;
+
+import com.example.carsharingapp.model.CarType;
+import com.example.carsharingapp.service.PricingEngine;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingBenchmark {
+    private PricingEngine pricingEngine;
+    private BigDecimal dailyFee;
+    private long dailyFeeCents;
+    private LocalDate rentalDate;
+    private LocalDate returnDate;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        BigDecimal fine = new BigDecimal("0.2");
+        pricingEngine = new PricingEngine(fine, fine, fine, fine);
+        dailyFee = new BigDecimal("49.99");
+        dailyFeeCents = PricingEngine.toCents(dailyFee);
+        rentalDate = LocalDate.of(2026, 3, 1);
+        returnDate = LocalDate.of(2026, 3, 8);
+        today = LocalDate.of(2026, 3, 11);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalAmount() {
+        long daysRented = ChronoUnit.DAYS.between(rentalDate, returnDate);
+        if (daysRented <= 0) {
+            daysRented = 1;
+        }
+        BigDecimal baseAmount = dailyFee.multiply(BigDecimal.valueOf(daysRented));
+        long daysLate = ChronoUnit.DAYS.between(returnDate, today);
+        BigDecimal fine = dailyFee
+                .multiply(BigDecimal.valueOf(0.2))
+                .multiply(BigDecimal.valueOf(daysLate));
+        return baseAmount.add(fine);
+    }
+
+    @Benchmark
+    public long fixedPointCents() {
+        return pricingEngine.totalCents(dailyFeeCents, CarType.SEDAN, rentalDate, returnDate,
+                today);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.carsharingapp.benchmark;
+
+import com.example.carsharingapp.model.Rental;
+import com.example.carsharingapp.validation.RentalDatesValidator;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RentalDatesValidatorBenchmark {
+    private final RentalDatesValidator validator = new RentalDatesValidator();
+
+    private Rental valid;
+    private Rental inverted;
+
+    @Setup
+    public void setUp() {
+        valid = new Rental();
+        valid.setRentalDate(LocalDate.of(2026, 3, 1));
+        valid.setReturnDate(LocalDate.of(2026, 3, 8));
+        inverted = new Rental();
+        inverted.setRentalDate(LocalDate.of(2026, 3, 8));
+        inverted.setReturnDate(LocalDate.of(2026, 3, 1));
+    }
+
+    @Benchmark
+    public boolean validDates() {
+        return validator.isValid(valid, null);
+    }
+
+    @Benchmark
+    public boolean invertedDates() {
+        return validator.isValid(inverted, null);
+    }
+}
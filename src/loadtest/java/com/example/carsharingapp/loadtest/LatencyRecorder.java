@@ -0,0 +1,89 @@
+package com.example.carsharingapp.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+final class LatencyRecorder {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Histogram> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> scenarios = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    void success(String endpoint, long nanos) {
+        record(endpoints, endpoint, nanos);
+    }
+
+    void error(String endpoint, String reason) {
+        errors.computeIfAbsent(endpoint + " -> " + reason, key -> new LongAdder()).increment();
+        endpoints.computeIfAbsent(endpoint, key -> newHistogram());
+    }
+
+    void scenarioCompleted(String scenario, long nanosSinceArrival) {
+        record(scenarios, scenario, nanosSinceArrival);
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.println();
+        out.println("Requests (service time, ms)");
+        printTable(out, endpoints, seconds, true);
+        out.println();
+        out.println("Scenarios (from scheduled arrival, ms)");
+        printTable(out, scenarios, seconds, false);
+        out.println();
+        out.println("Errors");
+        if (errors.isEmpty()) {
+            out.println("  none");
+        }
+        new TreeMap<>(errors).forEach((key, count) ->
+                out.printf("  %-60s %8d%n", key, count.sum()));
+        if (dropped.sum() > 0) {
+            out.printf("%nArrivals dropped at the in-flight limit: %d%n", dropped.sum());
+        }
+    }
+
+    private void printTable(PrintStream out, Map<String, Histogram> histograms,
+                            double seconds, boolean withErrors) {
+        out.printf("  %-40s %8s %7s %8s %8s %8s %8s %8s %8s%n", "name", "count", "errors",
+                "req/s", "p50", "p90", "p99", "p99.9", "max");
+        new TreeMap<>(histograms).forEach((name, histogram) -> {
+            String failed = withErrors ? String.valueOf(errorCount(name)) : "-";
+            out.printf("  %-40s %8d %7s %8.1f", name, histogram.getTotalCount(), failed,
+                    histogram.getTotalCount() / seconds);
+            for (double percentile : PERCENTILES) {
+                out.printf(" %8.1f", histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            out.printf(" %8.1f%n", histogram.getMaxValue() / 1000.0);
+        });
+    }
+
+    private long errorCount(String endpoint) {
+        String prefix = endpoint + " -> ";
+        return errors.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix))
+                .mapToLong(entry -> entry.getValue().sum())
+                .sum();
+    }
+
+    private static void record(Map<String, Histogram> histograms, String name, long nanos) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS);
+        histograms.computeIfAbsent(name, key -> newHistogram()).recordValue(micros);
+    }
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    }
+}
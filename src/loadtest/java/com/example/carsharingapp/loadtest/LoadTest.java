@@ -0,0 +1,141 @@
+package com.example.carsharingapp.loadtest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+final class LoadTest {
+    private final LoadTestSettings settings;
+    private final PostmanCollection collection;
+    private final Map<String, String> variables;
+    private final HttpClient client;
+    private final List<String> accountTokens = new ArrayList<>();
+    private final Scenario[] scenarios;
+    private final int[] cumulativeWeights;
+
+    LoadTest(LoadTestSettings settings, PostmanCollection collection, String baseUrl) {
+        this.settings = settings;
+        this.collection = collection;
+        this.variables = new HashMap<>(collection.variables());
+        this.variables.put("base_url", baseUrl);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.scenarios = settings.weights().keySet().toArray(Scenario[]::new);
+        this.cumulativeWeights = new int[scenarios.length];
+        int total = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            total += settings.weights().get(scenarios[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    void run() throws InterruptedException {
+        provisionAccounts();
+        ExecutorService executor = Executors.newCachedThreadPool(daemonThreads());
+        try {
+            if (!settings.warmup().isZero()) {
+                drive(executor, settings.warmup(), new LatencyRecorder());
+            }
+            LatencyRecorder recorder = new LatencyRecorder();
+            long started = System.nanoTime();
+            drive(executor, settings.duration(), recorder);
+            recorder.print(System.out, System.nanoTime() - started);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void provisionAccounts() {
+        LatencyRecorder discarded = new LatencyRecorder();
+        for (int i = 0; i < settings.accounts(); i++) {
+            VirtualUser user = newUser(discarded);
+            Scenario.signUp(user);
+            accountTokens.add(user.get("jwt_token"));
+        }
+    }
+
+    private void drive(ExecutorService executor, Duration duration, LatencyRecorder recorder)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / settings.arrivalsPerSecond());
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        // open model: arrivals follow the schedule no matter how slow the app gets, and each
+        // scenario is timed from its scheduled arrival so queueing delay is not hidden
+        for (long arrival = start; arrival < end; arrival += interval) {
+            long wait = arrival - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                recorder.dropped();
+                continue;
+            }
+            long scheduledAt = arrival;
+            Scenario scenario = pickScenario();
+            executor.execute(() -> {
+                try {
+                    scenario.run(prepare(scenario, recorder));
+                    recorder.scenarioCompleted(scenario.label(),
+                            System.nanoTime() - scheduledAt);
+                } catch (VirtualUser.StepFailedException e) {
+                    // already counted against the failing endpoint
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        if (!inFlight.tryAcquire(settings.maxInFlight(), settings.requestTimeout().toMillis() * 2,
+                TimeUnit.MILLISECONDS)) {
+            System.out.println("Some scenarios were still running when the phase ended");
+            return;
+        }
+        inFlight.release(settings.maxInFlight());
+    }
+
+    private VirtualUser prepare(Scenario scenario, LatencyRecorder recorder) {
+        VirtualUser user = newUser(recorder);
+        if (scenario.needsAccount()) {
+            user.set("jwt_token", accountTokens.get(
+                    ThreadLocalRandom.current().nextInt(accountTokens.size())));
+        }
+        return user;
+    }
+
+    private VirtualUser newUser(LatencyRecorder recorder) {
+        return new VirtualUser(client, collection, recorder, settings.requestTimeout(),
+                variables);
+    }
+
+    private Scenario pickScenario() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[scenarios.length - 1]);
+        for (int i = 0; i < scenarios.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return scenarios[i];
+            }
+        }
+        return scenarios[scenarios.length - 1];
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-user-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
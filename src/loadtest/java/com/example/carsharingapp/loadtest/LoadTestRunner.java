@@ -0,0 +1,19 @@
+package com.example.carsharingapp.loadtest;
+
+public final class LoadTestRunner {
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        PostmanCollection collection = PostmanCollection.load(settings.collection());
+        try (LocalStack stack = settings.startLocalStack() ? LocalStack.start(settings) : null) {
+            String baseUrl = stack == null ? settings.baseUrl() : stack.baseUrl();
+            System.out.printf("Load test against %s: %.1f arrivals/s for %s after %s warmup, %s%n",
+                    baseUrl, settings.arrivalsPerSecond(), settings.duration(),
+                    settings.warmup(), settings.weights());
+            new LoadTest(settings, collection, baseUrl).run();
+        }
+        System.exit(0);
+    }
+}
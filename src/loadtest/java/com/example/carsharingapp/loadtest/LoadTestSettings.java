@@ -0,0 +1,56 @@
+package com.example.carsharingapp.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+record LoadTestSettings(
+        String baseUrl,
+        Path collection,
+        double arrivalsPerSecond,
+        Duration warmup,
+        Duration duration,
+        Map<Scenario, Integer> weights,
+        int accounts,
+        int maxInFlight,
+        Duration requestTimeout,
+        boolean virtualThreads,
+        int carInventory) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                System.getProperty("loadtest.base-url", ""),
+                Path.of(System.getProperty("loadtest.collection",
+                        "postman/car-sharing-collection.json")),
+                Double.parseDouble(System.getProperty("loadtest.rate", "20")),
+                Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s")),
+                Duration.parse("PT" + System.getProperty("loadtest.duration", "60s")),
+                weights(System.getProperty("loadtest.weights",
+                        "register-login=1,browse-cars=6,rent-pay-return=3")),
+                Math.max(1, Integer.parseInt(System.getProperty("loadtest.accounts", "20"))),
+                Integer.parseInt(System.getProperty("loadtest.max-in-flight", "500")),
+                Duration.parse("PT" + System.getProperty("loadtest.request-timeout", "30s")),
+                "virtual".equals(System.getProperty("loadtest.threads", "platform")),
+                Integer.parseInt(System.getProperty("loadtest.car-inventory", "1000")));
+    }
+
+    boolean startLocalStack() {
+        return baseUrl.isBlank();
+    }
+
+    private static Map<Scenario, Integer> weights(String value) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Scenario.byLabel(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.weights selects no scenario");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.carsharingapp.loadtest;
+
+import com.example.carsharingapp.CarSharingAppApplication;
+import com.example.carsharingapp.car.config.CustomMySqlContainer;
+import com.example.carsharingapp.service.CarAvailabilityService;
+import java.io.IOException;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+final class LocalStack implements AutoCloseable {
+    private final StubGateways stubs;
+    private final ConfigurableApplicationContext context;
+
+    private LocalStack(StubGateways stubs, ConfigurableApplicationContext context) {
+        this.stubs = stubs;
+        this.context = context;
+    }
+
+    static LocalStack start(LoadTestSettings settings) throws IOException {
+        CustomMySqlContainer mysql = CustomMySqlContainer.getInstance();
+        mysql.start();
+        StubGateways stubs = StubGateways.start();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                CarSharingAppApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + mysql.getJdbcUrl(),
+                "--spring.datasource.username=" + mysql.getUsername(),
+                "--spring.datasource.password=" + mysql.getPassword(),
+                "--spring.jpa.show-sql=false",
+                "--spring.threads.virtual.enabled=" + settings.virtualThreads(),
+                "--stripe.secret.key=sk_test_loadtest",
+                "--stripe.api-base=" + stubs.baseUrl(),
+                "--stripe.success.url=http://localhost/payments/success",
+                "--stripe.cancel.url=http://localhost/payments/cancel",
+                "--stripe.webhook.secret=whsec_loadtest",
+                "--metrics.scrape.password=loadtest",
+                "--telegram.api-url=" + stubs.baseUrl(),
+                "--telegram.bot-token=loadtest",
+                "--telegram.chat-id=1");
+        // the three seeded cars would run out long before the app does
+        context.getBean(JdbcTemplate.class)
+                .update("UPDATE cars SET inventory = ?", settings.carInventory());
+        context.getBean(CarAvailabilityService.class).rebuild();
+        return new LocalStack(stubs, context);
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        stubs.close();
+    }
+}
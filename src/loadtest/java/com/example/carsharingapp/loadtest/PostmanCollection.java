@@ -0,0 +1,103 @@
+package com.example.carsharingapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+final class PostmanCollection {
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{([^}]+)}}");
+
+    private final Map<String, RequestTemplate> requests;
+    private final Map<String, String> variables;
+
+    private PostmanCollection(Map<String, RequestTemplate> requests,
+                              Map<String, String> variables) {
+        this.requests = requests;
+        this.variables = variables;
+    }
+
+    static PostmanCollection load(Path file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file.toFile());
+        Map<String, RequestTemplate> requests = new LinkedHashMap<>();
+        collect(root.path("item"), requests);
+        Map<String, String> variables = new HashMap<>();
+        for (JsonNode variable : root.path("variable")) {
+            variables.put(variable.path("key").asText(), variable.path("value").asText());
+        }
+        return new PostmanCollection(requests, variables);
+    }
+
+    RequestTemplate request(String name) {
+        RequestTemplate request = requests.get(name);
+        if (request == null) {
+            throw new IllegalArgumentException("No request named '" + name
+                    + "' in the Postman collection");
+        }
+        return request;
+    }
+
+    Map<String, String> variables() {
+        return variables;
+    }
+
+    private static void collect(JsonNode items, Map<String, RequestTemplate> requests) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.path("item"), requests);
+                continue;
+            }
+            JsonNode request = item.path("request");
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (JsonNode header : request.path("header")) {
+                headers.put(header.path("key").asText(), header.path("value").asText());
+            }
+            JsonNode url = request.path("url");
+            String name = item.path("name").asText();
+            requests.put(name, new RequestTemplate(
+                    request.path("method").asText("GET"),
+                    url.isTextual() ? url.asText() : url.path("raw").asText(),
+                    headers,
+                    request.path("body").path("raw").asText(null)));
+        }
+    }
+
+    private static String render(String template, Map<String, String> variables) {
+        Matcher matcher = VARIABLE.matcher(template);
+        StringBuilder rendered = new StringBuilder();
+        while (matcher.find()) {
+            String value = variables.get(matcher.group(1));
+            if (value == null) {
+                throw new IllegalStateException("Unresolved variable " + matcher.group());
+            }
+            matcher.appendReplacement(rendered, Matcher.quoteReplacement(value));
+        }
+        return matcher.appendTail(rendered).toString();
+    }
+
+    record RequestTemplate(String method, String url, Map<String, String> headers, String body) {
+        String endpoint() {
+            String path = url.replace("{{base_url}}", "");
+            int query = path.indexOf('?');
+            return method + " " + (query < 0 ? path : path.substring(0, query));
+        }
+
+        HttpRequest toHttpRequest(Map<String, String> variables, Duration timeout) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(render(url, variables)))
+                    .timeout(timeout)
+                    .method(method, body == null
+                            ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofString(render(body, variables)));
+            headers.forEach((name, value) -> builder.header(name, render(value, variables)));
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.carsharingapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+enum Scenario {
+    REGISTER_LOGIN("register-login", false) {
+        @Override
+        void run(VirtualUser user) {
+            signUp(user);
+        }
+    },
+    BROWSE_CARS("browse-cars", true) {
+        @Override
+        void run(VirtualUser user) {
+            JsonNode cars = user.send("Get All Cars", 200).path("content");
+            user.set("car_id", pick(cars).path("id").asLong(1));
+            user.send("Get Car", 200);
+            pickDates(user);
+            user.send("Get Available Cars", 200);
+        }
+    },
+    RENT_PAY_RETURN("rent-pay-return", false) {
+        @Override
+        void run(VirtualUser user) {
+            signUp(user);
+            pickDates(user);
+            JsonNode available = user.send("Get Available Cars", 200);
+            // with nothing free the rental request still goes out and its 4xx is reported
+            user.set("car_id", pick(available).path("id").asLong(1));
+            user.set("rental_id", user.send("Create Rental", 201).path("id").asLong());
+            user.send("Create Payment Session", 201);
+            user.send("Return Rental", 200);
+        }
+    };
+
+    private static final String PASSWORD = "Password123";
+    private static final String RUN_ID = Long.toString(System.currentTimeMillis(), 36);
+    private static final AtomicLong USERS = new AtomicLong();
+
+    private final String label;
+    private final boolean needsAccount;
+
+    Scenario(String label, boolean needsAccount) {
+        this.label = label;
+        this.needsAccount = needsAccount;
+    }
+
+    abstract void run(VirtualUser user);
+
+    String label() {
+        return label;
+    }
+
+    boolean needsAccount() {
+        return needsAccount;
+    }
+
+    static Scenario byLabel(String label) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.label.equals(label))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scenario: " + label));
+    }
+
+    static void signUp(VirtualUser user) {
+        user.set("email", "loadtest-" + RUN_ID + "-" + USERS.incrementAndGet() + "@example.com")
+                .set("password", PASSWORD);
+        user.send("Register", 200);
+        user.set("jwt_token", user.send("Login", 200).path("token").asText());
+    }
+
+    private static void pickDates(VirtualUser user) {
+        LocalDate today = LocalDate.now();
+        user.set("rental_date", today)
+                .set("return_date", today.plusDays(ThreadLocalRandom.current().nextInt(1, 8)));
+    }
+
+    private static JsonNode pick(JsonNode items) {
+        return items.isEmpty()
+                ? MissingNode.getInstance()
+                : items.get(ThreadLocalRandom.current().nextInt(items.size()));
+    }
+}
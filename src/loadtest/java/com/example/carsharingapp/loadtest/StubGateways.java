@@ -0,0 +1,45 @@
+package com.example.carsharingapp.loadtest;
+
+import com.example.carsharingapp.payment.config.FakeStripeServer;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+final class StubGateways implements AutoCloseable {
+    private static final String TELEGRAM_OK = """
+            {"ok":true,"result":{"message_id":1}}
+            """;
+
+    private final FakeStripeServer server;
+
+    private StubGateways(FakeStripeServer server) {
+        this.server = server;
+    }
+
+    static StubGateways start() throws IOException {
+        // Telegram shares the fake Stripe server, every other path answers like sendMessage
+        FakeStripeServer server = new FakeStripeServer();
+        server.handle("/", StubGateways::telegramOk);
+        return new StubGateways(server);
+    }
+
+    String baseUrl() {
+        return server.baseUrl();
+    }
+
+    @Override
+    public void close() {
+        server.close();
+    }
+
+    private static void telegramOk(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] body = TELEGRAM_OK.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.carsharingapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+final class VirtualUser {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final PostmanCollection collection;
+    private final LatencyRecorder recorder;
+    private final Duration timeout;
+    private final Map<String, String> variables;
+
+    VirtualUser(HttpClient client, PostmanCollection collection, LatencyRecorder recorder,
+                Duration timeout, Map<String, String> variables) {
+        this.client = client;
+        this.collection = collection;
+        this.recorder = recorder;
+        this.timeout = timeout;
+        this.variables = new HashMap<>(variables);
+    }
+
+    VirtualUser set(String name, Object value) {
+        variables.put(name, String.valueOf(value));
+        return this;
+    }
+
+    String get(String name) {
+        return variables.get(name);
+    }
+
+    JsonNode send(String requestName, int expectedStatus) {
+        PostmanCollection.RequestTemplate template = collection.request(requestName);
+        String endpoint = template.endpoint();
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = client.send(template.toHttpRequest(variables, timeout),
+                    HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            recorder.error(endpoint, e.getClass().getSimpleName());
+            throw new StepFailedException(endpoint, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StepFailedException(endpoint, e);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (response.statusCode() != expectedStatus) {
+            recorder.error(endpoint, "HTTP " + response.statusCode());
+            throw new StepFailedException(endpoint, null);
+        }
+        recorder.success(endpoint, elapsed);
+        try {
+            return response.body().isEmpty()
+                    ? MissingNode.getInstance()
+                    : OBJECT_MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            recorder.error(endpoint, "unreadable body");
+            throw new StepFailedException(endpoint, e);
+        }
+    }
+
+    static final class StepFailedException extends RuntimeException {
+        StepFailedException(String endpoint, Throwable cause) {
+            super("Step failed: " + endpoint, cause, false, false);
+        }
+    }
+}
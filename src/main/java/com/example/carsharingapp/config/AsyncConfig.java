@@ -1,13 +1,24 @@
 package com.example.carsharingapp.config;
 
 import java.util.concurrent.Executor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
 public class AsyncConfig {
+    @Value("${notification.executor.concurrency-limit:50}")
+    private int virtualConcurrencyLimit;
+
+    @Value("${payment.reconcile.parallelism:8}")
+    private int reconcileParallelism;
+
     @Bean(name = "notificationExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
     public Executor notificationExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
@@ -17,4 +28,33 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    @Bean(name = "notificationExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualNotificationExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("notif-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(virtualConcurrencyLimit);
+        return executor;
+    }
+
+    @Bean(name = "paymentReconcileExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Executor paymentReconcileExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reconcileParallelism);
+        executor.setMaxPoolSize(reconcileParallelism);
+        executor.setThreadNamePrefix("reconcile-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "paymentReconcileExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualPaymentReconcileExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("reconcile-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(reconcileParallelism);
+        return executor;
+    }
 }
@@ -0,0 +1,35 @@
+package com.example.carsharingapp.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+    public static final String CARS_CACHE = "cars";
+    public static final String CAR_PAGES_CACHE = "carPages";
+
+    @Value("${cache.cars.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${cache.cars.ttl:10m}")
+    private Duration ttl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CARS_CACHE, CAR_PAGES_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        // evictions issued inside a transaction are applied only after it commits
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
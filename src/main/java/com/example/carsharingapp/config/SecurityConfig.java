@@ -2,18 +2,26 @@ package com.example.carsharingapp.config;
 
 import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
+import com.example.carsharingapp.security.BoundedPasswordEncoder;
 import com.example.carsharingapp.security.JwtAuthenticationFilter;
+import com.example.carsharingapp.security.ScrapeAuthenticationProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -26,9 +34,57 @@ public class SecurityConfig {
     private final UserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${security.password.strength:10}")
+    private int passwordStrength;
+
+    @Value("${security.password.pool-size:2}")
+    private int passwordPoolSize;
+
+    @Value("${security.password.queue-capacity:16}")
+    private int passwordQueueCapacity;
+
+    @Value("${security.password.max-wait:2s}")
+    private Duration passwordMaxWait;
+
+    @Value("${security.password.retry-after:1s}")
+    private Duration passwordRetryAfter;
+
+    @Value("${metrics.scrape.username:prometheus}")
+    private String scrapeUsername;
+
+    @Value("${metrics.scrape.password}")
+    private String scrapePassword;
+
     @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder getPasswordEncoder(MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder("bcrypt", passwordStrength, passwordPoolSize,
+                passwordQueueCapacity, passwordMaxWait, passwordRetryAfter, meterRegistry);
+    }
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        // the scraper gets its own basic-auth account, app users are not checked here
+        return http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(
+                        auth -> auth
+                                .requestMatchers(EndpointRequest.to("health"))
+                                .permitAll()
+                                .requestMatchers(EndpointRequest.to("prometheus"))
+                                .hasRole("METRICS")
+                                .anyRequest()
+                                .hasRole("MANAGER")
+                )
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(jwtAuthenticationFilter,
+                        UsernamePasswordAuthenticationFilter.class)
+                .authenticationManager(new ProviderManager(
+                        new ScrapeAuthenticationProvider(scrapeUsername, scrapePassword)))
+                .build();
     }
 
     @Bean
@@ -43,7 +99,8 @@ public class SecurityConfig {
                                         antMatcher("/swagger-ui/**"),
                                         antMatcher("/v3/api-docs/**"),
                                         antMatcher("/payments/success"),
-                                        antMatcher("/payments/cancel"))
+                                        antMatcher("/payments/cancel"),
+                                        antMatcher("/payments/webhook"))
                                 .permitAll()
                                 .anyRequest()
                                 .authenticated()
@@ -1,8 +1,9 @@
 package com.example.carsharingapp.config;
 
-import com.stripe.Stripe;
-import jakarta.annotation.PostConstruct;
+import com.stripe.StripeClient;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
@@ -16,9 +17,28 @@ public class StripeConfig {
     @Value("${stripe.cancel.url}")
     private String cancelUrl;
 
-    @PostConstruct
-    public void init() {
-        Stripe.apiKey = stripeSecretKey;
+    @Value("${stripe.api-base:https://api.stripe.com}")
+    private String apiBase;
+
+    @Value("${stripe.http.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${stripe.http.read-timeout:10s}")
+    private Duration readTimeout;
+
+    @Value("${stripe.http.max-network-retries:2}")
+    private int maxNetworkRetries;
+
+    @Bean
+    public StripeClient stripeClient() {
+        // the SDK retries with the same Idempotency-Key, so a retried create is never doubled
+        return StripeClient.builder()
+                .setApiKey(stripeSecretKey)
+                .setApiBase(apiBase)
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setReadTimeout((int) readTimeout.toMillis())
+                .setMaxNetworkRetries(maxNetworkRetries)
+                .build();
     }
 
     public String getSuccessUrl() {
@@ -1,7 +1,12 @@
 package com.example.carsharingapp.config;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class TelegramConfig {
@@ -11,6 +16,27 @@ public class TelegramConfig {
     @Value("${telegram.chat-id}")
     private String chatId;
 
+    @Value("${telegram.api-url:https://api.telegram.org}")
+    private String apiUrl;
+
+    @Value("${telegram.http.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${telegram.http.read-timeout:10s}")
+    private Duration readTimeout;
+
+    @Bean
+    public RestTemplate telegramRestTemplate() {
+        // the JDK client keeps connections alive and multiplexes them over HTTP/2 when offered
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return new RestTemplate(requestFactory);
+    }
+
     public String getBotToken() {
         return botToken;
     }
@@ -18,4 +44,8 @@ public class TelegramConfig {
     public String getChatId() {
         return chatId;
     }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
 }
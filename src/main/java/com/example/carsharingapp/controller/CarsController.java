@@ -3,13 +3,18 @@ package com.example.carsharingapp.controller;
 import com.example.carsharingapp.dto.car.CarRequestDto;
 import com.example.carsharingapp.dto.car.CarResponseDto;
 import com.example.carsharingapp.dto.car.UpdateCarRequestDto;
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
+import com.example.carsharingapp.dto.page.PageCursor;
 import com.example.carsharingapp.service.CarService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -21,6 +26,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -40,6 +46,27 @@ public class CarsController {
         return carService.findAll(pageable);
     }
 
+    @PreAuthorize("hasRole('ROLE_CUSTOMER')")
+    @GetMapping("/cursor")
+    @Operation(summary = "Get cars by cursor",
+            description = "Retrieve cars page by page using an opaque 'after' cursor "
+                    + "instead of offset pagination")
+    public CursorPageResponseDto<CarResponseDto> getAllByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_SIZE) int size) {
+        return carService.findAllAfter(after, size);
+    }
+
+    @PreAuthorize("hasRole('ROLE_CUSTOMER')")
+    @GetMapping("/available")
+    @Operation(summary = "Get available cars",
+            description = "Retrieve cars that have a free unit on every day from 'from' to 'to'")
+    public List<CarResponseDto> getAvailable(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return carService.findAvailable(from, to);
+    }
+
     @PreAuthorize("hasRole('ROLE_CUSTOMER')")
     @GetMapping("/{id}")
     @Operation(summary = "Get car by ID",
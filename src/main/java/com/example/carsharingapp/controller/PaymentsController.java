@@ -1,10 +1,13 @@
 package com.example.carsharingapp.controller;
 
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
+import com.example.carsharingapp.dto.page.PageCursor;
 import com.example.carsharingapp.dto.payment.CancelPaymentResponseDto;
 import com.example.carsharingapp.dto.payment.CreatePaymentRequestDto;
 import com.example.carsharingapp.dto.payment.PaymentResponseDto;
-import com.example.carsharingapp.model.User;
+import com.example.carsharingapp.security.UserPrincipal;
 import com.example.carsharingapp.service.PaymentService;
+import com.example.carsharingapp.service.StripeWebhookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -17,6 +20,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -29,29 +33,46 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/payments")
 public class PaymentsController {
     private final PaymentService paymentService;
+    private final StripeWebhookService stripeWebhookService;
 
     @PreAuthorize("hasRole('ROLE_CUSTOMER') or hasRole('ROLE_MANAGER')")
     @GetMapping
     @Operation(summary = "Get all payments for user",
             description = "Retrieve all payments made by the authenticated user")
     public Page<PaymentResponseDto> getPayments(Authentication authentication, Pageable pageable) {
-        User user = (User) authentication.getPrincipal();
-        return paymentService.getPayments(user.getId(), pageable);
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+        return paymentService.getPayments(user.id(), pageable);
+    }
+
+    @PreAuthorize("hasRole('ROLE_CUSTOMER') or hasRole('ROLE_MANAGER')")
+    @GetMapping("/cursor")
+    @Operation(summary = "Get payments for user by cursor",
+            description = "Retrieve the authenticated user's payments using an opaque "
+                    + "'after' cursor instead of offset pagination")
+    public CursorPageResponseDto<PaymentResponseDto> getPaymentsByCursor(
+            Authentication authentication,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_SIZE) int size) {
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+        return paymentService.getPaymentsAfter(user.id(), after, size);
     }
 
     @PreAuthorize("hasRole('ROLE_CUSTOMER') or hasRole('ROLE_MANAGER')")
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create Stripe payment session",
-            description = "Create a Stripe checkout session for a rental")
+            description = "Create a Stripe checkout session for a rental. Repeating the "
+                    + "request with the same Idempotency-Key returns the same payment")
     public PaymentResponseDto createPayment(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody @Valid CreatePaymentRequestDto requestDto) {
-        return paymentService.createPayment(requestDto.getRentalId());
+        return paymentService.createPayment(requestDto.getRentalId(), idempotencyKey);
     }
 
     @GetMapping("/success")
     @Operation(summary = "Stripe payment success",
-            description = "Endpoint Stripe redirects to after successful payment")
+            description = "Endpoint Stripe redirects to after successful payment. Shows the "
+                    + "current payment state, which is updated from Stripe webhooks")
     public PaymentResponseDto paymentSuccess(@RequestParam("session_id") String sessionId) {
         return paymentService.confirmSuccess(sessionId);
     }
@@ -62,4 +83,13 @@ public class PaymentsController {
     public CancelPaymentResponseDto paymentCancel(@RequestParam("session_id") String sessionId) {
         return paymentService.cancelPayment(sessionId);
     }
+
+    @PostMapping("/webhook")
+    @Operation(summary = "Stripe webhook",
+            description = "Receives signed checkout.session events from Stripe and queues "
+                    + "them for applying to payments")
+    public void handleWebhook(@RequestHeader("Stripe-Signature") String signature,
+                              @RequestBody String payload) {
+        stripeWebhookService.receive(payload, signature);
+    }
 }
@@ -1,12 +1,17 @@
 package com.example.carsharingapp.controller;
 
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
+import com.example.carsharingapp.dto.page.PageCursor;
 import com.example.carsharingapp.dto.rental.CreateRentalRequestDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteRequestDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteResponseDto;
 import com.example.carsharingapp.dto.rental.RentalResponseDto;
-import com.example.carsharingapp.model.User;
+import com.example.carsharingapp.security.UserPrincipal;
 import com.example.carsharingapp.service.RentalService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -38,8 +43,17 @@ public class RentalsController {
                     "Create a new rental for the authenticated user. Decreases car inventory by 1.")
     public RentalResponseDto createRental(Authentication authentication,
                                           @RequestBody @Valid CreateRentalRequestDto requestDto) {
-        User user = (User) authentication.getPrincipal();
-        return rentalService.createRental(user, requestDto);
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+        return rentalService.createRental(user.id(), requestDto);
+    }
+
+    @PreAuthorize("hasRole('ROLE_CUSTOMER') or hasRole('ROLE_MANAGER')")
+    @PostMapping("/quote")
+    @Operation(summary = "Quote rentals",
+            description = "Price several (car, dates) pairs in one call without booking them.")
+    public List<RentalQuoteResponseDto> quoteRentals(
+            @RequestBody @Valid RentalQuoteRequestDto requestDto) {
+        return rentalService.quoteRentals(requestDto);
     }
 
     @PreAuthorize("isAuthenticated()")
@@ -55,26 +69,52 @@ public class RentalsController {
             Authentication authentication,
             Pageable pageable
     ) {
-        User user = (User) authentication.getPrincipal();
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
 
         boolean isAdmin = user.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("ROLE_MANAGER"));
 
         if (!isAdmin) {
-            return rentalService.getUserRentals(user.getId(), active, pageable);
+            return rentalService.getUserRentals(user.id(), active, pageable);
         }
 
         return rentalService.getAllRentals(active, userId, pageable);
     }
 
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/cursor")
+    @Operation(summary = "Get rentals by cursor",
+            description = """
+                Same filtering as GET /rentals, ordered by rental date and id.
+                Pass the returned nextCursor as 'after' to fetch the next page.
+                """)
+    public CursorPageResponseDto<RentalResponseDto> getRentalsByCursor(
+            @RequestParam Boolean active,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_SIZE) int size,
+            Authentication authentication
+    ) {
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+
+        boolean isAdmin = user.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_MANAGER"));
+
+        if (!isAdmin) {
+            return rentalService.getUserRentalsAfter(user.id(), active, after, size);
+        }
+
+        return rentalService.getAllRentalsAfter(active, userId, after, size);
+    }
+
     @Operation(summary = "Get rental by ID",
             description = "Retrieve a specific rental if it belongs to the authenticated user.")
     @PreAuthorize("hasRole('ROLE_CUSTOMER') or hasRole('ROLE_MANAGER')")
     @GetMapping("/{id}")
     public RentalResponseDto getRentalById(@PathVariable Long id,
                                            Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-        return rentalService.getById(id, user.getId());
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+        return rentalService.getById(id, user.id());
     }
 
     @PreAuthorize("hasRole('ROLE_CUSTOMER') or hasRole('ROLE_MANAGER')")
@@ -84,7 +124,7 @@ public class RentalsController {
                     "Marks rental as finished and increases car inventory by 1.")
     public RentalResponseDto returnCar(@PathVariable Long id,
                                        Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-        return rentalService.returnCar(id, user.getId());
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+        return rentalService.returnCar(id, user.id());
     }
 }
@@ -2,11 +2,15 @@ package com.example.carsharingapp.dto.car;
 
 import com.example.carsharingapp.model.CarType;
 import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 
 @Data
 @Accessors
+@NoArgsConstructor
+@AllArgsConstructor
 public class CarResponseDto {
     private Long id;
     private String model;
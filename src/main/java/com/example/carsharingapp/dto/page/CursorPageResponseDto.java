@@ -0,0 +1,16 @@
+package com.example.carsharingapp.dto.page;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageResponseDto<T>(List<T> content, String nextCursor, boolean hasNext) {
+    public static <E, T> CursorPageResponseDto<T> of(List<E> rows,
+                                                     int size,
+                                                     Function<E, T> mapper,
+                                                     Function<E, String> cursor) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursor.apply(page.get(page.size() - 1)) : null;
+        return new CursorPageResponseDto<>(page.stream().map(mapper).toList(), nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.carsharingapp.dto.page;
+
+import com.example.carsharingapp.exceptions.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+public record PageCursor(LocalDate date, Long id) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+    private static final String SEPARATOR = ":";
+
+    public static String encode(Long id) {
+        return encodeRaw(String.valueOf(id));
+    }
+
+    public static String encode(LocalDate date, Long id) {
+        return encodeRaw(date + SEPARATOR + id);
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new PageCursor(null, Long.parseLong(raw));
+            }
+            return new PageCursor(LocalDate.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid page cursor: " + token, e);
+        }
+    }
+
+    public LocalDate requireDate() {
+        if (date == null) {
+            throw new InvalidCursorException("Page cursor does not belong to this listing");
+        }
+        return date;
+    }
+
+    public static int pageSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_SIZE));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
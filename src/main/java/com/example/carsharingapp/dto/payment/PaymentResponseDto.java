@@ -3,11 +3,15 @@ package com.example.carsharingapp.dto.payment;
 import com.example.carsharingapp.model.PaymentStatus;
 import com.example.carsharingapp.model.PaymentType;
 import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 
 @Data
 @Accessors
+@NoArgsConstructor
+@AllArgsConstructor
 public class PaymentResponseDto {
     private Long id;
     private PaymentStatus status;
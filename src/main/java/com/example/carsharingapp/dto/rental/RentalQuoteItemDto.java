@@ -0,0 +1,19 @@
+package com.example.carsharingapp.dto.rental;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors
+public class RentalQuoteItemDto {
+    @NotNull
+    private Long carId;
+
+    @NotNull
+    private LocalDate rentalDate;
+
+    @NotNull
+    private LocalDate returnDate;
+}
@@ -0,0 +1,17 @@
+package com.example.carsharingapp.dto.rental;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors
+public class RentalQuoteRequestDto {
+    @NotEmpty
+    @Size(max = 200)
+    private List<@NotNull @Valid RentalQuoteItemDto> items;
+}
@@ -0,0 +1,19 @@
+package com.example.carsharingapp.dto.rental;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalQuoteResponseDto {
+    private Long carId;
+    private LocalDate rentalDate;
+    private LocalDate returnDate;
+    private BigDecimal amount;
+}
@@ -1,11 +1,15 @@
 package com.example.carsharingapp.dto.rental;
 
 import java.time.LocalDate;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 
 @Data
 @Accessors
+@NoArgsConstructor
+@AllArgsConstructor
 public class RentalResponseDto {
     private Long id;
     private Long carId;
@@ -0,0 +1,11 @@
+package com.example.carsharingapp.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message,Throwable ex) {
+        super(message,ex);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.carsharingapp.exceptions;
+
+public class InvalidDateRangeException extends RuntimeException {
+    public InvalidDateRangeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.carsharingapp.exceptions;
+
+import java.time.Duration;
+
+public class PaymentGatewayUnavailableException extends PaymentProcessingException {
+    private final Duration retryAfter;
+
+    public PaymentGatewayUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.carsharingapp.exceptions;
+
+public class PendingPaymentsException extends RuntimeException {
+    public PendingPaymentsException(String message) {
+        super(message);
+    }
+}
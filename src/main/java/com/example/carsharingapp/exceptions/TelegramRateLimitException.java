@@ -0,0 +1,16 @@
+package com.example.carsharingapp.exceptions;
+
+import java.time.Duration;
+
+public class TelegramRateLimitException extends NotificationSendException {
+    private final Duration retryAfter;
+
+    public TelegramRateLimitException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.carsharingapp.exceptions;
+
+public class WebhookSignatureException extends RuntimeException {
+    public WebhookSignatureException(String message) {
+        super(message);
+    }
+
+    public WebhookSignatureException(String message,Throwable ex) {
+        super(message,ex);
+    }
+}
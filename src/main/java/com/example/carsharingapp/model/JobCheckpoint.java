@@ -0,0 +1,40 @@
+package com.example.carsharingapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "job_checkpoints")
+@Getter
+@Setter
+public class JobCheckpoint {
+    @Id
+    @Column(length = 100)
+    private String jobName;
+
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    @Column(nullable = false)
+    private long lastId;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(nullable = false, columnDefinition = "TINYINT(1) default 0")
+    private boolean completed;
+
+    @Column(columnDefinition = "TEXT")
+    private String digestPage;
+
+    @Column(nullable = false)
+    private int digestMessages;
+
+    @Column(nullable = false)
+    private long digestOmitted;
+}
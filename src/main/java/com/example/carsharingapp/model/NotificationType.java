@@ -0,0 +1,8 @@
+package com.example.carsharingapp.model;
+
+public enum NotificationType {
+    PAYMENT,
+    RENTAL,
+    OVERDUE,
+    GENERAL
+}
@@ -0,0 +1,6 @@
+package com.example.carsharingapp.model;
+
+public enum OutboxStatus {
+    PENDING,
+    FAILED
+}
@@ -12,6 +12,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -37,9 +38,14 @@ public class Payment {
     @Column(name = "session_url", length = 2000)
     private String sessionUrl;
 
-    @Column(nullable = false, unique = true)
+    @Column(unique = true)
     private String sessionId;
 
+    @Column(unique = true, length = 100)
+    private String idempotencyKey;
+
+    private LocalDateTime createdAt;
+
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal amount;
 
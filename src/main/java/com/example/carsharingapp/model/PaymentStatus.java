@@ -1,7 +1,9 @@
 package com.example.carsharingapp.model;
 
 public enum PaymentStatus {
+    INITIATED,
     PENDING,
+    FAILED,
     EXPIRED,
     PAID
 }
@@ -0,0 +1,40 @@
+package com.example.carsharingapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "stripe_events")
+@Getter
+@Setter
+public class StripeEvent {
+    @Id
+    private String id;
+
+    @Column(nullable = false, length = 100)
+    private String type;
+
+    @Column(nullable = false)
+    private String sessionId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus targetStatus;
+
+    @Column(nullable = false)
+    private LocalDateTime receivedAt;
+
+    private LocalDateTime processedAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+}
@@ -1,7 +1,41 @@
 package com.example.carsharingapp.repository.car;
 
+import com.example.carsharingapp.dto.car.CarResponseDto;
 import com.example.carsharingapp.model.Car;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CarRepository extends JpaRepository<Car,Long> {
+    @Query(value = """
+            SELECT new com.example.carsharingapp.dto.car.CarResponseDto(
+                c.id, c.model, c.brand, c.type, c.inventory, c.dailyFee)
+            FROM Car c
+            """,
+            countQuery = "SELECT count(c) FROM Car c")
+    Page<CarResponseDto> findCarPage(Pageable pageable);
+
+    List<Car> findAllByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("""
+            SELECT new com.example.carsharingapp.dto.car.CarResponseDto(
+                c.id, c.model, c.brand, c.type, c.inventory, c.dailyFee)
+            FROM Car c
+            WHERE c.id IN :ids
+            """)
+    List<CarResponseDto> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Car c SET c.inventory = c.inventory - 1 WHERE c.id = :id AND c.inventory > 0")
+    int reserveUnit(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Car c SET c.inventory = c.inventory + 1 WHERE c.id = :id")
+    int releaseUnit(@Param("id") Long id);
 }
@@ -0,0 +1,7 @@
+package com.example.carsharingapp.repository.job;
+
+import com.example.carsharingapp.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint,String> {
+}
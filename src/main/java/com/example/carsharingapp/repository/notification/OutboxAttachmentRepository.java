@@ -0,0 +1,12 @@
+package com.example.carsharingapp.repository.notification;
+
+import com.example.carsharingapp.model.OutboxAttachment;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxAttachmentRepository extends JpaRepository<OutboxAttachment,Long> {
+    @Query("SELECT a.content FROM OutboxAttachment a WHERE a.id = :outboxId")
+    Optional<byte[]> findContentByOutboxId(@Param("outboxId") Long outboxId);
+}
@@ -0,0 +1,61 @@
+package com.example.carsharingapp.repository.notification;
+
+import com.example.carsharingapp.model.OutboxMessage;
+import com.example.carsharingapp.model.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage,Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT m FROM OutboxMessage m
+            WHERE m.status = com.example.carsharingapp.model.OutboxStatus.PENDING
+                AND m.nextAttemptAt <= :now
+            ORDER BY CASE m.type
+                    WHEN com.example.carsharingapp.model.NotificationType.PAYMENT THEN 0
+                    WHEN com.example.carsharingapp.model.NotificationType.RENTAL THEN 1
+                    WHEN com.example.carsharingapp.model.NotificationType.OVERDUE THEN 2
+                    ELSE 3
+                END, m.nextAttemptAt, m.id
+            """)
+    List<OutboxMessage> findDueForUpdate(@Param("now") LocalDateTime now, Limit limit);
+
+    long countByStatus(OutboxStatus status);
+
+    @Query("""
+            SELECT min(m.createdAt) FROM OutboxMessage m
+            WHERE m.status = com.example.carsharingapp.model.OutboxStatus.PENDING
+            """)
+    Optional<LocalDateTime> findOldestPendingCreatedAt();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.id = :id")
+    int deleteSent(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE OutboxMessage m
+            SET m.status = :status, m.attempts = :attempts,
+                m.nextAttemptAt = :nextAttemptAt, m.lastError = :lastError
+            WHERE m.id = :id
+            """)
+    int reschedule(@Param("id") Long id,
+                   @Param("status") OutboxStatus status,
+                   @Param("attempts") int attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+}
@@ -0,0 +1,6 @@
+package com.example.carsharingapp.repository.payment;
+
+import java.math.BigDecimal;
+
+public record PaymentOwnerView(Long paymentId, Long userId, BigDecimal amount) {
+}
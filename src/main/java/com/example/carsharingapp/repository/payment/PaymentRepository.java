@@ -1,19 +1,130 @@
 package com.example.carsharingapp.repository.payment;
 
+import com.example.carsharingapp.dto.payment.PaymentResponseDto;
 import com.example.carsharingapp.model.Payment;
 import com.example.carsharingapp.model.PaymentStatus;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface PaymentRepository extends JpaRepository<Payment,Long> {
     boolean existsByRental_User_IdAndStatus(Long userId, PaymentStatus status);
 
+    @EntityGraph(attributePaths = "rental")
     Optional<Payment> findBySessionId(String sessionId);
 
-    Page<Payment> findAllByRental_User_Id(Long userId, Pageable pageable);
+    @Query("""
+            SELECT new com.example.carsharingapp.dto.payment.PaymentResponseDto(
+                p.id, p.status, p.type, p.rental.id, p.amount, p.sessionUrl)
+            FROM Payment p
+            WHERE p.sessionId = :sessionId
+            """)
+    Optional<PaymentResponseDto> findViewBySessionId(@Param("sessionId") String sessionId);
 
-    List<Payment> findAllByStatus(PaymentStatus paymentStatus);
+    @Query(value = """
+            SELECT new com.example.carsharingapp.dto.payment.PaymentResponseDto(
+                p.id, p.status, p.type, p.rental.id, p.amount, p.sessionUrl)
+            FROM Payment p
+            WHERE p.rental.user.id = :userId
+            """,
+            countQuery = "SELECT count(p) FROM Payment p WHERE p.rental.user.id = :userId")
+    Page<PaymentResponseDto> findUserPaymentPage(@Param("userId") Long userId,
+                                                 Pageable pageable);
+
+    List<Payment> findAllByRental_User_IdAndIdGreaterThanOrderByIdAsc(Long userId, Long id,
+                                                                      Limit limit);
+
+    @Query("""
+            SELECT new com.example.carsharingapp.repository.payment.PendingPaymentView(
+                p.id, p.rental.user.id, p.amount, p.sessionId, p.createdAt)
+            FROM Payment p
+            WHERE p.status = com.example.carsharingapp.model.PaymentStatus.PENDING
+                AND p.id > :afterId
+                AND (p.createdAt IS NULL OR p.createdAt < :createdBefore)
+            ORDER BY p.id
+            """)
+    List<PendingPaymentView> findPendingChunk(@Param("afterId") Long afterId,
+                                              @Param("createdBefore") LocalDateTime createdBefore,
+                                              Limit limit);
+
+    @Query("""
+            SELECT min(p.createdAt) FROM Payment p
+            WHERE p.status = com.example.carsharingapp.model.PaymentStatus.PENDING
+            """)
+    Optional<LocalDateTime> findOldestPendingCreatedAt();
+
+    Optional<Payment> findByIdempotencyKey(String idempotencyKey);
+
+    Optional<Payment> findFirstByRental_IdAndStatusIn(Long rentalId,
+                                                      Collection<PaymentStatus> statuses);
+
+    @EntityGraph(attributePaths = "rental")
+    List<Payment> findAllByStatusAndCreatedAtBeforeOrderByIdAsc(PaymentStatus status,
+                                                                LocalDateTime createdBefore,
+                                                                Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.sessionId = :sessionId, p.sessionUrl = :sessionUrl,
+                p.status = com.example.carsharingapp.model.PaymentStatus.PENDING
+            WHERE p.id = :id
+                AND p.status = com.example.carsharingapp.model.PaymentStatus.INITIATED
+            """)
+    int attachSession(@Param("id") Long id,
+                      @Param("sessionId") String sessionId,
+                      @Param("sessionUrl") String sessionUrl);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.status = com.example.carsharingapp.model.PaymentStatus.FAILED
+            WHERE p.id = :id
+                AND p.status = com.example.carsharingapp.model.PaymentStatus.INITIATED
+            """)
+    int markFailed(@Param("id") Long id);
+
+    @Query("""
+            SELECT new com.example.carsharingapp.repository.payment.PaymentOwnerView(
+                p.id, p.rental.user.id, p.amount)
+            FROM Payment p
+            WHERE p.sessionId IN :sessionIds
+                AND p.status = com.example.carsharingapp.model.PaymentStatus.PENDING
+            """)
+    List<PaymentOwnerView> findPendingViewsBySessionIds(
+            @Param("sessionIds") Collection<String> sessionIds);
+
+    @Query("SELECT p.sessionId FROM Payment p WHERE p.sessionId IN :sessionIds")
+    List<String> findAttachedSessionIds(@Param("sessionIds") Collection<String> sessionIds);
+
+    @Query("""
+            SELECT new com.example.carsharingapp.repository.payment.PaymentOwnerView(
+                p.id, p.rental.user.id, p.amount)
+            FROM Payment p
+            WHERE p.status = com.example.carsharingapp.model.PaymentStatus.PENDING
+            """)
+    List<PaymentOwnerView> findAllPendingOwners();
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+            SET p.status = :status
+            WHERE p.sessionId IN :sessionIds
+                AND p.status = com.example.carsharingapp.model.PaymentStatus.PENDING
+            """)
+    int updatePendingStatus(@Param("sessionIds") Collection<String> sessionIds,
+                            @Param("status") PaymentStatus status);
 }
@@ -0,0 +1,8 @@
+package com.example.carsharingapp.repository.payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record PendingPaymentView(Long paymentId, Long userId, BigDecimal amount,
+                                 String sessionId, LocalDateTime createdAt) {
+}
@@ -0,0 +1,51 @@
+package com.example.carsharingapp.repository.payment;
+
+import com.example.carsharingapp.model.StripeEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface StripeEventRepository extends JpaRepository<StripeEvent,String> {
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO stripe_events (id, type, session_id, target_status, received_at)
+            VALUES (:id, :type, :sessionId, :targetStatus, :receivedAt)
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("type") String type,
+                       @Param("sessionId") String sessionId,
+                       @Param("targetStatus") String targetStatus,
+                       @Param("receivedAt") LocalDateTime receivedAt);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT e FROM StripeEvent e
+            WHERE e.processedAt IS NULL
+                AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now)
+            ORDER BY e.receivedAt, e.id
+            """)
+    List<StripeEvent> findDueForUpdate(@Param("now") LocalDateTime now, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE StripeEvent e SET e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<String> ids,
+                      @Param("processedAt") LocalDateTime processedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StripeEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,7 @@
+package com.example.carsharingapp.repository.rental;
+
+import java.time.LocalDate;
+
+public record ActiveRentalSpan(Long rentalId, Long carId, LocalDate rentalDate,
+                               LocalDate returnDate) {
+}
@@ -1,16 +1,102 @@
 package com.example.carsharingapp.repository.rental;
 
+import com.example.carsharingapp.dto.rental.RentalResponseDto;
 import com.example.carsharingapp.model.Rental;
+import jakarta.persistence.LockModeType;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface RentalRepository extends JpaRepository<Rental,Long> {
-    List<Rental> findAllByActiveTrueAndReturnDateBefore(LocalDate date);
+    @Query("""
+            SELECT r FROM Rental r
+            JOIN FETCH r.user
+            JOIN FETCH r.car
+            WHERE r.active = true AND r.returnDate < :date AND r.id > :afterId
+            ORDER BY r.id
+            """)
+    List<Rental> findOverdueChunk(@Param("date") LocalDate date,
+                                  @Param("afterId") Long afterId,
+                                  Limit limit);
 
-    Page<Rental> findAllByUserIdAndActive(Long userId, Boolean active, Pageable pageable);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Rental r JOIN FETCH r.car WHERE r.id = :id")
+    Optional<Rental> findWithCarForUpdateById(@Param("id") Long id);
 
-    Page<Rental> findAllByActive(Boolean active, Pageable pageable);
+    @Query("""
+            SELECT new com.example.carsharingapp.repository.rental.ActiveRentalSpan(
+                r.id, r.car.id, r.rentalDate, r.returnDate)
+            FROM Rental r
+            WHERE r.active = true
+            """)
+    List<ActiveRentalSpan> findAllActiveSpans();
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Rental r
+            SET r.active = false, r.actualReturnDate = :returnDate
+            WHERE r.id = :id AND r.active = true
+            """)
+    int closeRental(@Param("id") Long id, @Param("returnDate") LocalDate returnDate);
+
+    @Query(value = """
+            SELECT new com.example.carsharingapp.dto.rental.RentalResponseDto(
+                r.id, r.car.id, r.user.id, r.rentalDate, r.returnDate,
+                r.actualReturnDate, r.active)
+            FROM Rental r
+            WHERE r.user.id = :userId AND r.active = :active
+            """,
+            countQuery = """
+            SELECT count(r) FROM Rental r
+            WHERE r.user.id = :userId AND r.active = :active
+            """)
+    Page<RentalResponseDto> findUserRentalPage(@Param("userId") Long userId,
+                                               @Param("active") Boolean active,
+                                               Pageable pageable);
+
+    @Query(value = """
+            SELECT new com.example.carsharingapp.dto.rental.RentalResponseDto(
+                r.id, r.car.id, r.user.id, r.rentalDate, r.returnDate,
+                r.actualReturnDate, r.active)
+            FROM Rental r
+            WHERE r.active = :active
+            """,
+            countQuery = "SELECT count(r) FROM Rental r WHERE r.active = :active")
+    Page<RentalResponseDto> findRentalPage(@Param("active") Boolean active, Pageable pageable);
+
+    List<Rental> findAllByUserIdAndActiveOrderByRentalDateAscIdAsc(Long userId, Boolean active,
+                                                                   Limit limit);
+
+    List<Rental> findAllByActiveOrderByRentalDateAscIdAsc(Boolean active, Limit limit);
+
+    @Query("""
+            SELECT r FROM Rental r
+            WHERE r.user.id = :userId AND r.active = :active
+            AND (r.rentalDate > :rentalDate OR (r.rentalDate = :rentalDate AND r.id > :id))
+            ORDER BY r.rentalDate, r.id
+            """)
+    List<Rental> findUserRentalsAfter(@Param("userId") Long userId,
+                                      @Param("active") Boolean active,
+                                      @Param("rentalDate") LocalDate rentalDate,
+                                      @Param("id") Long id,
+                                      Limit limit);
+
+    @Query("""
+            SELECT r FROM Rental r
+            WHERE r.active = :active
+            AND (r.rentalDate > :rentalDate OR (r.rentalDate = :rentalDate AND r.id > :id))
+            ORDER BY r.rentalDate, r.id
+            """)
+    List<Rental> findRentalsAfter(@Param("active") Boolean active,
+                                  @Param("rentalDate") LocalDate rentalDate,
+                                  @Param("id") Long id,
+                                  Limit limit);
 }
@@ -4,17 +4,31 @@ import com.example.carsharingapp.exceptions.EntityNotFoundException;
 import com.example.carsharingapp.model.User;
 import com.example.carsharingapp.repository.user.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @RequiredArgsConstructor
 @Service
-public class CustomUserDetailServer implements UserDetailsService {
+public class CustomUserDetailServer implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     @Override
-    public User loadUserByUsername(String email) {
+    public UserPrincipal loadUserByUsername(String email) {
         return userRepository.findByEmail(email)
+                .map(UserPrincipal::withPassword)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + email));
     }
+
+    @Override
+    @Transactional
+    public UserPrincipal updatePassword(UserDetails user, String newPassword) {
+        User entity = userRepository.findByEmail(user.getUsername())
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "User not found: " + user.getUsername()));
+        entity.setPassword(newPassword);
+        return UserPrincipal.withPassword(userRepository.save(entity));
+    }
 }
@@ -1,25 +1,39 @@
 package com.example.carsharingapp.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JwtUtil {
     private final Key secret;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
     @Value("${jwt.expiration}")
     private long expiration;
 
-    public JwtUtil(@Value("${jwt.secret}") String secretString) {
+    public JwtUtil(@Value("${jwt.secret}") String secretString,
+                   @Value("${jwt.claims-cache.maximum-size:10000}") long cacheSize) {
         secret = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(secret)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilExpiration())
+                .build();
     }
 
     public String generateToken(String username) {
@@ -31,29 +45,47 @@ public class JwtUtil {
                 .compact();
     }
 
-    public boolean isValidToken(String token) {
+    public VerifiedToken parseVerifiedToken(String token) {
+        // the cache hashes the token itself, a digest here would cost as much as the HMAC check
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
+        Claims claims;
         try {
-            Jws<Claims> claimsJws = Jwts.parserBuilder()
-                    .setSigningKey(secret)
-                    .build()
-                    .parseClaimsJws(token);
-
-            return !claimsJws.getBody().getExpiration().before(new Date());
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
+            throw new JwtException("Expired or invalid JWT token", e);
+        }
+        if (claims.getExpiration() == null) {
             throw new JwtException("Expired or invalid JWT token");
         }
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(),
+                claims.getExpiration().toInstant());
+        verifiedTokens.put(token, verified);
+        return verified;
     }
 
-    public String getUsername(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+    public record VerifiedToken(String subject, Instant expiresAt) {
     }
 
-    private <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claimsResolver.apply(claims);
+    private static final class UntilExpiration implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken verified, long currentTime) {
+            long millisLeft = verified.expiresAt().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken verified, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken verified, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,47 @@
+package com.example.carsharingapp.security;
+
+import com.example.carsharingapp.exceptions.EntityNotFoundException;
+import com.example.carsharingapp.repository.user.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class PrincipalCache {
+    private final UserRepository userRepository;
+    private final Cache<String, UserPrincipal> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${security.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${security.principal-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public UserPrincipal get(String email) {
+        return principals.get(email, key -> userRepository.findByEmail(key)
+                .map(UserPrincipal::of)
+                .orElseThrow(() -> new EntityNotFoundException("User not found: " + key)));
+    }
+
+    public void evict(String email) {
+        principals.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // a request racing the transaction may have cached the old row again
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            principals.invalidate(email);
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.carsharingapp.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+public class ScrapeAuthenticationProvider implements AuthenticationProvider {
+    private final String username;
+    private final byte[] usernameDigest;
+    private final byte[] passwordDigest;
+
+    public ScrapeAuthenticationProvider(String username, String password) {
+        this.username = username;
+        this.usernameDigest = sha256(username);
+        this.passwordDigest = sha256(password);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        // the secret is machine generated, a digest compare keeps scrapes off the bcrypt pool
+        boolean usernameMatches = MessageDigest.isEqual(usernameDigest,
+                sha256(authentication.getName()));
+        boolean passwordMatches = MessageDigest.isEqual(passwordDigest,
+                sha256(String.valueOf(authentication.getCredentials())));
+        if (!usernameMatches || !passwordMatches) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+        return UsernamePasswordAuthenticationToken.authenticated(username, null,
+                List.of(new SimpleGrantedAuthority("ROLE_METRICS")));
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
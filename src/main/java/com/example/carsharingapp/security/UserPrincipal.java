@@ -0,0 +1,47 @@
+package com.example.carsharingapp.security;
+
+import com.example.carsharingapp.model.Role;
+import com.example.carsharingapp.model.User;
+import java.util.Collection;
+import java.util.Set;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+public record UserPrincipal(Long id, String email, Role role, boolean enabled, String password)
+        implements UserDetails {
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(),
+                user.isEnabled(), null);
+    }
+
+    public static UserPrincipal withPassword(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(),
+                user.isEnabled(), user.getPassword());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Set.of(role);
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal[id=" + id + ", email=" + email + ", role=" + role
+                + ", enabled=" + enabled + "]";
+    }
+}
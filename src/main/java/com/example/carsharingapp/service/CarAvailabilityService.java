@@ -0,0 +1,232 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.exceptions.InvalidDateRangeException;
+import com.example.carsharingapp.model.Car;
+import com.example.carsharingapp.model.Rental;
+import com.example.carsharingapp.repository.car.CarRepository;
+import com.example.carsharingapp.repository.rental.ActiveRentalSpan;
+import com.example.carsharingapp.repository.rental.RentalRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+@RequiredArgsConstructor
+public class CarAvailabilityService {
+    private final CarRepository carRepository;
+    private final RentalRepository rentalRepository;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Value("${availability.horizon-days:366}")
+    private int horizonDays;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${availability.rebuild-cron:0 0 0 * * *}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            Snapshot rebuilt = new Snapshot(LocalDate.now().toEpochDay(), horizonDays);
+            List<ActiveRentalSpan> spans = rentalRepository.findAllActiveSpans();
+            Map<Long, Integer> activeByCar = new HashMap<>();
+            for (ActiveRentalSpan span : spans) {
+                activeByCar.merge(span.carId(), 1, Integer::sum);
+            }
+            for (Car car : carRepository.findAll()) {
+                int active = activeByCar.getOrDefault(car.getId(), 0);
+                rebuilt.cars.put(car.getId(),
+                        new CarOccupancy(car.getInventory() + active, horizonDays));
+            }
+            for (ActiveRentalSpan span : spans) {
+                CarOccupancy occupancy = rebuilt.cars.get(span.carId());
+                if (occupancy != null) {
+                    occupancy.book(span.rentalId(),
+                            rebuilt.span(span.rentalDate(), span.returnDate()));
+                }
+            }
+            snapshot = rebuilt;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public List<Long> findAvailableCarIds(LocalDate from, LocalDate to) {
+        Snapshot current = requireSnapshot();
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new InvalidDateRangeException("'from' must not be after 'to'");
+        }
+        int first = current.index(from);
+        int last = current.index(to);
+        if (first < 0 || last >= horizonDays) {
+            throw new InvalidDateRangeException("Availability is known from "
+                    + LocalDate.ofEpochDay(current.baseDay) + " to "
+                    + LocalDate.ofEpochDay(current.baseDay + horizonDays - 1));
+        }
+        List<Long> available = new ArrayList<>();
+        current.cars.forEach((carId, occupancy) -> {
+            if (occupancy.isFree(first, last)) {
+                available.add(carId);
+            }
+        });
+        return available;
+    }
+
+    public void rentalStarted(Rental rental) {
+        Long carId = rental.getCar().getId();
+        Long rentalId = rental.getId();
+        LocalDate rentalDate = rental.getRentalDate();
+        LocalDate returnDate = rental.getReturnDate();
+        afterCommit(current -> {
+            CarOccupancy occupancy = current.cars.get(carId);
+            if (occupancy != null) {
+                occupancy.book(rentalId, current.span(rentalDate, returnDate));
+            }
+        });
+    }
+
+    public void rentalClosed(Long carId, Long rentalId) {
+        afterCommit(current -> {
+            CarOccupancy occupancy = current.cars.get(carId);
+            if (occupancy != null) {
+                occupancy.release(rentalId);
+            }
+        });
+    }
+
+    public void inventoryChanged(Long carId, int inventory) {
+        afterCommit(current -> current.cars
+                .computeIfAbsent(carId, id -> new CarOccupancy(0, horizonDays))
+                .setFreeUnits(inventory));
+    }
+
+    public void carRemoved(Long carId) {
+        afterCommit(current -> current.cars.remove(carId));
+    }
+
+    private Snapshot requireSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Car availability is not loaded yet");
+        }
+        return current;
+    }
+
+    private void afterCommit(SnapshotUpdate update) {
+        Runnable apply = () -> {
+            writeLock.lock();
+            try {
+                if (snapshot != null) {
+                    update.apply(snapshot);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            apply.run();
+                        }
+                    });
+        } else {
+            apply.run();
+        }
+    }
+
+    private interface SnapshotUpdate {
+        void apply(Snapshot snapshot);
+    }
+
+    private static final class Snapshot {
+        private final long baseDay;
+        private final int horizonDays;
+        private final Map<Long, CarOccupancy> cars = new ConcurrentHashMap<>();
+
+        private Snapshot(long baseDay, int horizonDays) {
+            this.baseDay = baseDay;
+            this.horizonDays = horizonDays;
+        }
+
+        private int index(LocalDate date) {
+            return (int) Math.max(Integer.MIN_VALUE + 1L,
+                    Math.min(Integer.MAX_VALUE, date.toEpochDay() - baseDay));
+        }
+
+        private int[] span(LocalDate rentalDate, LocalDate returnDate) {
+            int first = Math.max(0, index(rentalDate));
+            // an overdue rental keeps its unit until it is actually returned
+            int last = returnDate.toEpochDay() < baseDay
+                    ? horizonDays - 1
+                    : Math.min(horizonDays - 1, index(returnDate));
+            return new int[] {first, last};
+        }
+    }
+
+    private static final class CarOccupancy {
+        private final int[] booked;
+        private final BitSet fullDays;
+        private final Map<Long, int[]> rentals = new HashMap<>();
+        private int capacity;
+
+        private CarOccupancy(int capacity, int horizonDays) {
+            this.capacity = capacity;
+            this.booked = new int[horizonDays];
+            this.fullDays = new BitSet(horizonDays);
+            refreshFullDays(0, horizonDays - 1);
+        }
+
+        private synchronized boolean isFree(int first, int last) {
+            int full = fullDays.nextSetBit(first);
+            return full < 0 || full > last;
+        }
+
+        private synchronized void book(Long rentalId, int[] span) {
+            if (rentals.putIfAbsent(rentalId, span) == null) {
+                adjust(span, 1);
+            }
+        }
+
+        private synchronized void release(Long rentalId) {
+            int[] span = rentals.remove(rentalId);
+            if (span != null) {
+                adjust(span, -1);
+            }
+        }
+
+        private synchronized void setFreeUnits(int freeUnits) {
+            capacity = freeUnits + rentals.size();
+            refreshFullDays(0, booked.length - 1);
+        }
+
+        private void adjust(int[] span, int delta) {
+            for (int day = span[0]; day <= span[1]; day++) {
+                booked[day] += delta;
+            }
+            refreshFullDays(span[0], span[1]);
+        }
+
+        private void refreshFullDays(int first, int last) {
+            for (int day = first; day <= last; day++) {
+                fullDays.set(day, booked[day] >= capacity);
+            }
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.example.carsharingapp.service;
 import com.example.carsharingapp.dto.car.CarRequestDto;
 import com.example.carsharingapp.dto.car.CarResponseDto;
 import com.example.carsharingapp.dto.car.UpdateCarRequestDto;
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
+import java.time.LocalDate;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -11,6 +14,10 @@ public interface CarService {
 
     Page<CarResponseDto> findAll(Pageable pageable);
 
+    CursorPageResponseDto<CarResponseDto> findAllAfter(String after, int size);
+
+    List<CarResponseDto> findAvailable(LocalDate from, LocalDate to);
+
     CarResponseDto getById(Long id);
 
     CarResponseDto update(Long id, UpdateCarRequestDto requestDto);
@@ -1,17 +1,35 @@
 package com.example.carsharingapp.service;
 
+import static com.example.carsharingapp.config.CacheConfig.CARS_CACHE;
+import static com.example.carsharingapp.config.CacheConfig.CAR_PAGES_CACHE;
+
 import com.example.carsharingapp.dto.car.CarRequestDto;
 import com.example.carsharingapp.dto.car.CarResponseDto;
 import com.example.carsharingapp.dto.car.UpdateCarRequestDto;
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
+import com.example.carsharingapp.dto.page.PageCursor;
 import com.example.carsharingapp.exceptions.EntityNotFoundException;
 import com.example.carsharingapp.mapper.CarMapper;
 import com.example.carsharingapp.model.Car;
 import com.example.carsharingapp.repository.car.CarRepository;
-import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -21,18 +39,70 @@ public class CarServiceImpl implements CarService {
 
     private final CarRepository carRepository;
 
+    private final CarAvailabilityService carAvailabilityService;
+
+    private final CacheManager cacheManager;
+
+    @Value("${cache.cars.load-batch-size:500}")
+    private int loadBatchSize;
+
     @Override
+    @CacheEvict(cacheNames = CAR_PAGES_CACHE, allEntries = true)
     public CarResponseDto create(CarRequestDto requestDto) {
-        return carMapper.toDto(carRepository.save(carMapper.toModel(requestDto)));
+        Car car = carRepository.save(carMapper.toModel(requestDto));
+        carAvailabilityService.inventoryChanged(car.getId(), car.getInventory());
+        return carMapper.toDto(car);
     }
 
     @Override
+    @Cacheable(cacheNames = CAR_PAGES_CACHE, key = "#pageable")
+    @Transactional(readOnly = true)
     public Page<CarResponseDto> findAll(Pageable pageable) {
-        return carRepository.findAll(pageable)
-                .map(carMapper::toDto);
+        return carRepository.findCarPage(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<CarResponseDto> findAllAfter(String after, int size) {
+        PageCursor cursor = PageCursor.decode(after);
+        int pageSize = PageCursor.pageSize(size);
+        List<Car> cars = carRepository.findAllByIdGreaterThanOrderByIdAsc(
+                cursor == null ? 0L : cursor.id(), Limit.of(pageSize + 1));
+        return CursorPageResponseDto.of(cars, pageSize, carMapper::toDto,
+                car -> PageCursor.encode(car.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CarResponseDto> findAvailable(LocalDate from, LocalDate to) {
+        List<Long> ids = carAvailabilityService.findAvailableCarIds(from, to);
+        Cache cache = cacheManager.getCache(CARS_CACHE);
+        Map<Long, CarResponseDto> cars = new HashMap<>(ids.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            CarResponseDto cached = cache.get(id, CarResponseDto.class);
+            if (cached == null) {
+                missing.add(id);
+            } else {
+                cars.put(id, cached);
+            }
+        }
+        for (int start = 0; start < missing.size(); start += loadBatchSize) {
+            List<Long> batch = missing.subList(start,
+                    Math.min(start + loadBatchSize, missing.size()));
+            for (CarResponseDto car : carRepository.findViewsByIdIn(batch)) {
+                cache.put(car.getId(), car);
+                cars.put(car.getId(), car);
+            }
+        }
+        return ids.stream()
+                .map(cars::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
+    @Cacheable(cacheNames = CARS_CACHE, key = "#id")
     public CarResponseDto getById(Long id) {
         return carRepository.findById(id)
                 .map(carMapper::toDto)
@@ -41,6 +111,10 @@ public class CarServiceImpl implements CarService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CARS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CAR_PAGES_CACHE, allEntries = true)
+    })
     public CarResponseDto update(Long id, UpdateCarRequestDto requestDto) {
         Car car = carRepository.findById(id)
                 .orElseThrow(() ->
@@ -48,11 +122,17 @@ public class CarServiceImpl implements CarService {
 
         carMapper.updateCarFromDto(requestDto, car);
         carRepository.save(car);
+        carAvailabilityService.inventoryChanged(car.getId(), car.getInventory());
         return carMapper.toDto(car);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CARS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CAR_PAGES_CACHE, allEntries = true)
+    })
     public void delete(Long id) {
         carRepository.deleteById(id);
+        carAvailabilityService.carRemoved(id);
     }
 }
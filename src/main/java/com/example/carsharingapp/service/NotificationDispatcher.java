@@ -0,0 +1,194 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.exceptions.TelegramRateLimitException;
+import com.example.carsharingapp.model.OutboxMessage;
+import com.example.carsharingapp.model.OutboxStatus;
+import com.example.carsharingapp.repository.notification.OutboxAttachmentRepository;
+import com.example.carsharingapp.repository.notification.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class NotificationDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxAttachmentRepository outboxAttachmentRepository;
+    private final TelegramNotificationService telegramNotificationService;
+    private final NotificationScheduler notificationScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Timer deliveryLag;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter rateLimited;
+    private final Counter dropped;
+
+    @Value("${notification.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notification.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.initial-backoff:5s}")
+    private Duration initialBackoff;
+
+    @Value("${notification.outbox.max-backoff:30m}")
+    private Duration maxBackoff;
+
+    @Value("${notification.outbox.lease:2m}")
+    private Duration lease;
+
+    @Value("${notification.lanes.defer-delay:5s}")
+    private Duration deferDelay;
+
+    public NotificationDispatcher(OutboxMessageRepository outboxMessageRepository,
+                                  OutboxAttachmentRepository outboxAttachmentRepository,
+                                  TelegramNotificationService telegramNotificationService,
+                                  NotificationScheduler notificationScheduler,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outboxAttachmentRepository = outboxAttachmentRepository;
+        this.telegramNotificationService = telegramNotificationService;
+        this.notificationScheduler = notificationScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        meterRegistry.gauge("notification.outbox.pending", pending);
+        meterRegistry.gauge("notification.outbox.lag.seconds", lagSeconds);
+        this.deliveryLag = Timer.builder("notification.outbox.delivery.lag")
+                .description("Time from enqueueing a notification to its delivery")
+                .register(meterRegistry);
+        this.sent = meterRegistry.counter("notification.outbox.sent");
+        this.retried = meterRegistry.counter("notification.outbox.retried", "reason", "error");
+        this.rateLimited = meterRegistry.counter("notification.outbox.retried",
+                "reason", "rate_limit");
+        this.dropped = meterRegistry.counter("notification.outbox.dropped");
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval:1s}")
+    public void dispatch() {
+        List<OutboxMessage> batch;
+        boolean lanesFull = false;
+        do {
+            batch = claimBatch();
+            for (OutboxMessage message : batch) {
+                lanesFull |= !schedule(message);
+            }
+        } while (batch.size() == batchSize && !lanesFull);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.gauge-interval:30s}")
+    public void refreshGauges() {
+        // both queries scan the pending rows, so they stay off the per-second poll
+        pending.set(outboxMessageRepository.countByStatus(OutboxStatus.PENDING));
+        lagSeconds.set(outboxMessageRepository.findOldestPendingCreatedAt()
+                .map(oldest -> Duration.between(oldest, LocalDateTime.now()).toSeconds())
+                .orElse(0L));
+    }
+
+    private List<OutboxMessage> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxMessageRepository
+                    .findDueForUpdate(now, Limit.of(batchSize));
+            // the lease keeps other dispatchers away while this one is sending
+            due.forEach(message -> message.setNextAttemptAt(now.plus(lease)));
+            return due;
+        });
+    }
+
+    private boolean schedule(OutboxMessage message) {
+        Long id = message.getId();
+        if (!inFlight.add(id)) {
+            // still queued from an earlier claim whose lease ran out
+            return true;
+        }
+        boolean accepted = notificationScheduler.submit(message.getType(), () -> {
+            try {
+                deliver(message);
+            } finally {
+                inFlight.remove(id);
+            }
+        });
+        if (accepted) {
+            return true;
+        }
+        inFlight.remove(id);
+        String error = "Dropped: " + message.getType() + " lane is full";
+        if (notificationScheduler.overflowPolicy(message.getType())
+                == NotificationScheduler.OverflowPolicy.DROP) {
+            outboxMessageRepository.reschedule(id, OutboxStatus.FAILED, message.getAttempts(),
+                    message.getNextAttemptAt(), error);
+            dropped.increment();
+            return true;
+        }
+        outboxMessageRepository.reschedule(id, OutboxStatus.PENDING, message.getAttempts(),
+                LocalDateTime.now().plus(deferDelay), message.getLastError());
+        return false;
+    }
+
+    private void deliver(OutboxMessage message) {
+        try {
+            if (message.getAttachmentName() == null) {
+                telegramNotificationService.sendMessage(message.getPayload());
+            } else {
+                byte[] content = outboxAttachmentRepository
+                        .findContentByOutboxId(message.getId())
+                        .orElseThrow(() -> new IllegalStateException(
+                                "Attachment of outbox message " + message.getId() + " is missing"));
+                telegramNotificationService.sendDocument(message.getAttachmentName(), content,
+                        message.getPayload());
+            }
+        } catch (TelegramRateLimitException e) {
+            // throttling is not the message's fault, so it does not use up an attempt
+            outboxMessageRepository.reschedule(message.getId(), OutboxStatus.PENDING,
+                    message.getAttempts(), LocalDateTime.now().plus(e.getRetryAfter()),
+                    e.getMessage());
+            rateLimited.increment();
+            return;
+        } catch (RuntimeException e) {
+            handleFailure(message, e);
+            return;
+        }
+        outboxMessageRepository.deleteSent(message.getId());
+        deliveryLag.record(Duration.between(message.getCreatedAt(), LocalDateTime.now()));
+        sent.increment();
+    }
+
+    private void handleFailure(OutboxMessage message, RuntimeException e) {
+        int attempts = message.getAttempts() + 1;
+        String error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        if (attempts >= maxAttempts) {
+            outboxMessageRepository.reschedule(message.getId(), OutboxStatus.FAILED, attempts,
+                    message.getNextAttemptAt(), error);
+            dropped.increment();
+            return;
+        }
+        outboxMessageRepository.reschedule(message.getId(), OutboxStatus.PENDING, attempts,
+                LocalDateTime.now().plus(backoff(attempts)), error);
+        retried.increment();
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.model.NotificationType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NotificationScheduler {
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final Map<NotificationType, Lane> lanes = new EnumMap<>(NotificationType.class);
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    @Value("${notification.lanes.capacity:100}")
+    private int capacity;
+
+    @Value("${notification.lanes.workers:2}")
+    private int maxWorkers;
+
+    @Value("${notification.lanes.payment.overflow:defer}")
+    private OverflowPolicy paymentOverflow;
+
+    @Value("${notification.lanes.rental.overflow:defer}")
+    private OverflowPolicy rentalOverflow;
+
+    @Value("${notification.lanes.overdue.overflow:defer}")
+    private OverflowPolicy overdueOverflow;
+
+    @Value("${notification.lanes.general.overflow:drop}")
+    private OverflowPolicy generalOverflow;
+
+    public NotificationScheduler(@Qualifier("notificationExecutor") Executor executor,
+                                 MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        // enum order is the lane priority: payment > rental > overdue > general
+        for (NotificationType type : NotificationType.values()) {
+            String lane = type.name().toLowerCase();
+            Lane created = new Lane(Timer.builder("notification.lane.wait")
+                    .description("Time a notification waits in its lane before delivery")
+                    .tag("lane", lane)
+                    .register(meterRegistry));
+            meterRegistry.gauge("notification.lane.depth", Tags.of("lane", lane),
+                    created.depth);
+            lanes.put(type, created);
+        }
+    }
+
+    public boolean submit(NotificationType type, Runnable task) {
+        Lane lane = lanes.get(type);
+        if (lane.depth.incrementAndGet() > capacity) {
+            lane.depth.decrementAndGet();
+            meterRegistry.counter("notification.lane.rejected",
+                    "lane", type.name().toLowerCase(),
+                    "policy", overflowPolicy(type).name().toLowerCase()).increment();
+            return false;
+        }
+        lane.tasks.add(new QueuedTask(task, System.nanoTime()));
+        startWorkers();
+        return true;
+    }
+
+    public OverflowPolicy overflowPolicy(NotificationType type) {
+        return switch (type) {
+            case PAYMENT -> paymentOverflow;
+            case RENTAL -> rentalOverflow;
+            case OVERDUE -> overdueOverflow;
+            case GENERAL -> generalOverflow;
+        };
+    }
+
+    private void startWorkers() {
+        int active;
+        while (hasQueuedTasks() && (active = activeWorkers.get()) < maxWorkers) {
+            if (!activeWorkers.compareAndSet(active, active + 1)) {
+                continue;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                // queued tasks stay in their lanes and are picked up by the next worker
+                activeWorkers.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            QueuedTask next;
+            while ((next = poll()) != null) {
+                next.task.run();
+            }
+        } finally {
+            activeWorkers.decrementAndGet();
+            startWorkers();
+        }
+    }
+
+    private QueuedTask poll() {
+        for (Lane lane : lanes.values()) {
+            QueuedTask next = lane.tasks.poll();
+            if (next != null) {
+                lane.depth.decrementAndGet();
+                lane.waitTimer.record(System.nanoTime() - next.enqueuedAt, TimeUnit.NANOSECONDS);
+                return next;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasQueuedTasks() {
+        return lanes.values().stream().anyMatch(lane -> !lane.tasks.isEmpty());
+    }
+
+    public enum OverflowPolicy {
+        DEFER,
+        DROP
+    }
+
+    private record QueuedTask(Runnable task, long enqueuedAt) {
+    }
+
+    private static final class Lane {
+        private final Queue<QueuedTask> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Timer waitTimer;
+
+        private Lane(Timer waitTimer) {
+            this.waitTimer = waitTimer;
+        }
+    }
+}
@@ -5,6 +5,10 @@ public interface NotificationService {
 
     void notifyOverdueRental(Long rentalId, Long userId, String info);
 
+    void notifyOverdueDigest(String digest);
+
+    void notifyOverdueReport(String fileName, byte[] csv, String caption);
+
     void notifyPaymentSuccess(Long paymentId, Long userId, String summary);
 
     void notifyGeneralMessage(String message);
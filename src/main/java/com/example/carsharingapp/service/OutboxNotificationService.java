@@ -0,0 +1,79 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.model.NotificationType;
+import com.example.carsharingapp.model.OutboxAttachment;
+import com.example.carsharingapp.model.OutboxMessage;
+import com.example.carsharingapp.repository.notification.OutboxAttachmentRepository;
+import com.example.carsharingapp.repository.notification.OutboxMessageRepository;
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class OutboxNotificationService implements NotificationService {
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxAttachmentRepository outboxAttachmentRepository;
+
+    @Override
+    public void notifyNewRental(Long rentalId, Long userId, String summary) {
+        String text =
+                String.format("📣 *New rental created*\nRental id: %d\nUser id: %d\n%s",
+                        rentalId, userId, summary);
+        enqueue(NotificationType.RENTAL, text);
+    }
+
+    @Override
+    public void notifyOverdueRental(Long rentalId, Long userId, String info) {
+        String text =
+                String.format("⚠️ *Overdue rental*\nRental id: %d\nUser id: %d\nDetailed info %s",
+                        rentalId, userId, info);
+        enqueue(NotificationType.OVERDUE, text);
+    }
+
+    @Override
+    public void notifyOverdueDigest(String digest) {
+        enqueue(NotificationType.OVERDUE, "⚠️ *Overdue rentals*\n" + digest);
+    }
+
+    @Override
+    public void notifyOverdueReport(String fileName, byte[] csv, String caption) {
+        OutboxMessage message = newMessage(NotificationType.OVERDUE, caption);
+        message.setAttachmentName(fileName);
+        // the report is stored with the message so any node can deliver it after a restart,
+        // in its own table so the dispatcher claims messages without the content
+        OutboxAttachment attachment = new OutboxAttachment();
+        attachment.setMessage(outboxMessageRepository.save(message));
+        attachment.setContent(csv);
+        outboxAttachmentRepository.save(attachment);
+    }
+
+    @Override
+    public void notifyPaymentSuccess(Long paymentId, Long userId, String summary) {
+        String text =
+                String.format("✅ *Payment succeeded*\nPayment id: %d\nUser id: %d\n%s",
+                        paymentId, userId, summary);
+        enqueue(NotificationType.PAYMENT, text);
+    }
+
+    @Override
+    public void notifyGeneralMessage(String message) {
+        enqueue(NotificationType.GENERAL, "ℹ️ " + message);
+    }
+
+    private void enqueue(NotificationType type, String payload) {
+        outboxMessageRepository.save(newMessage(type, payload));
+    }
+
+    private OutboxMessage newMessage(NotificationType type, String payload) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMessage message = new OutboxMessage();
+        message.setType(type);
+        message.setPayload(payload);
+        message.setCreatedAt(now);
+        message.setNextAttemptAt(now);
+        return message;
+    }
+}
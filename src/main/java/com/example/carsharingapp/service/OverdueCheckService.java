@@ -1,33 +1,131 @@
 package com.example.carsharingapp.service;
 
+import com.example.carsharingapp.model.JobCheckpoint;
 import com.example.carsharingapp.model.Rental;
+import com.example.carsharingapp.repository.job.JobCheckpointRepository;
 import com.example.carsharingapp.repository.rental.RentalRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 
 @Service
 @RequiredArgsConstructor
 public class OverdueCheckService {
+    private static final String JOB_NAME = "overdue-check";
 
     private final RentalRepository rentalRepository;
     private final NotificationService notificationService;
+    private final JobCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock scanLock = new ReentrantLock();
+
+    @Value("${overdue.scan.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${overdue.notification.mode:digest}")
+    private NotificationMode notificationMode;
+
+    @Value("${overdue.digest.max-messages:10}")
+    private int digestMaxMessages;
+
+    @Value("${overdue.digest.attach-csv:false}")
+    private boolean digestAttachCsv;
+
+    @Value("${overdue.digest.attach-max-size:10MB}")
+    private DataSize digestAttachMaxSize;
 
     @Scheduled(cron = "0 5 0 * * *")
     public void checkOverdueRentals() {
-        List<Rental> overdue = rentalRepository
-                .findAllByActiveTrueAndReturnDateBefore(LocalDate.now());
+        LocalDate today = LocalDate.now();
+        scan(() -> Optional.of(checkpointRepository.findById(JOB_NAME)
+                .filter(saved -> today.equals(saved.getRunDate()))
+                .orElseGet(() -> newCheckpoint(today))));
+    }
 
-        if (overdue.isEmpty()) {
-            notificationService.notifyGeneralMessage("No rentals overdue today!");
-            return;
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedScan() {
+        scan(() -> checkpointRepository.findById(JOB_NAME));
+    }
+
+    private void scan(Supplier<Optional<JobCheckpoint>> checkpointLoader) {
+        scanLock.lock();
+        try {
+            // read under the lock, a scan that waited must continue where the previous one stopped
+            checkpointLoader.get()
+                    .filter(checkpoint -> !checkpoint.isCompleted())
+                    .ifPresent(checkpoint -> Timer.builder("overdue.scan.run")
+                            .description("Time to run a whole overdue rentals scan")
+                            .register(meterRegistry)
+                            .record(() -> scanChunks(checkpoint)));
+        } finally {
+            scanLock.unlock();
         }
+    }
+
+    private void scanChunks(JobCheckpoint checkpoint) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Timer chunkTimer = Timer.builder("overdue.scan.chunk")
+                .description("Time to load and notify one chunk of overdue rentals")
+                .register(meterRegistry);
+        Counter rentalsCounter = Counter.builder("overdue.scan.rentals")
+                .description("Overdue rentals notified by the daily scan")
+                .register(meterRegistry);
+
+        OverdueDigest digest = notificationMode == NotificationMode.DIGEST
+                ? new OverdueDigest(notificationService, digestMaxMessages, checkpoint)
+                : null;
+        int loaded;
+        do {
+            loaded = chunkTimer.record(() -> transactionTemplate.execute(status ->
+                    processChunk(checkpoint, digest)));
+            rentalsCounter.increment(loaded);
+        } while (loaded == chunkSize);
+
+        boolean attachReport = digest != null && digestAttachCsv && checkpoint.getProcessed() > 0;
+        // the report is read after the scan committed, a crash before the final commit redoes it
+        Optional<byte[]> report = attachReport ? renderReport(checkpoint) : Optional.empty();
+        String reportNote = !attachReport ? null
+                : report.isPresent() ? "full list attached"
+                : "full list too large to attach";
+        transactionTemplate.executeWithoutResult(status ->
+                finishScan(checkpoint, digest, report, reportNote));
+    }
+
+    private Optional<byte[]> renderReport(JobCheckpoint checkpoint) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return OverdueReport.render(rentalRepository, readOnlyTransaction,
+                checkpoint.getRunDate(), chunkSize, digestAttachMaxSize.toBytes());
+    }
+
+    private int processChunk(JobCheckpoint checkpoint, OverdueDigest digest) {
+        List<Rental> overdue = rentalRepository.findOverdueChunk(
+                checkpoint.getRunDate(), checkpoint.getLastId(), Limit.of(chunkSize));
 
         for (Rental rental : overdue) {
-            long daysLate = ChronoUnit.DAYS.between(rental.getReturnDate(), LocalDate.now());
+            long daysLate = ChronoUnit.DAYS.between(rental.getReturnDate(),
+                    checkpoint.getRunDate());
+            if (digest != null) {
+                digest.add(rental, daysLate);
+                continue;
+            }
 
             String info = """
                     Overdue Rental Warning!
@@ -47,5 +145,43 @@ public class OverdueCheckService {
 
             notificationService.notifyOverdueRental(rental.getId(), rental.getUser().getId(),info);
         }
+
+        if (!overdue.isEmpty()) {
+            checkpoint.setLastId(overdue.get(overdue.size() - 1).getId());
+            checkpoint.setProcessed(checkpoint.getProcessed() + overdue.size());
+        }
+        // everything queued for this chunk commits together with the checkpoint that skips it
+        if (digest != null) {
+            digest.saveTo(checkpoint);
+        }
+        checkpointRepository.save(checkpoint);
+        return overdue.size();
+    }
+
+    private void finishScan(JobCheckpoint checkpoint, OverdueDigest digest,
+                            Optional<byte[]> report, String reportNote) {
+        if (digest != null) {
+            digest.finish(reportNote);
+            report.ifPresent(csv -> notificationService.notifyOverdueReport(
+                    "overdue-rentals-" + checkpoint.getRunDate() + ".csv", csv,
+                    "Overdue rentals: " + checkpoint.getProcessed()));
+            digest.saveTo(checkpoint);
+        }
+        if (checkpoint.getProcessed() == 0) {
+            notificationService.notifyGeneralMessage("No rentals overdue today!");
+        }
+        checkpoint.setCompleted(true);
+    }
+
+    private JobCheckpoint newCheckpoint(LocalDate runDate) {
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setJobName(JOB_NAME);
+        checkpoint.setRunDate(runDate);
+        return checkpoint;
+    }
+
+    public enum NotificationMode {
+        DIGEST,
+        PER_RENTAL
     }
 }
@@ -0,0 +1,88 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.model.JobCheckpoint;
+import com.example.carsharingapp.model.Rental;
+
+class OverdueDigest {
+    private static final int MESSAGE_LIMIT = 4096;
+    private static final int HEADER_RESERVE = 64;
+    private static final int BODY_LIMIT = MESSAGE_LIMIT - HEADER_RESERVE;
+
+    private final NotificationService notificationService;
+    private final int maxMessages;
+    private final StringBuilder page = new StringBuilder(BODY_LIMIT);
+    private int sentMessages;
+    private long total;
+    private long omitted;
+
+    OverdueDigest(NotificationService notificationService, int maxMessages,
+                  JobCheckpoint checkpoint) {
+        this.notificationService = notificationService;
+        this.maxMessages = maxMessages;
+        // a resumed scan continues the page and counters of the last committed chunk
+        if (checkpoint.getDigestPage() != null) {
+            page.append(checkpoint.getDigestPage());
+        }
+        this.sentMessages = checkpoint.getDigestMessages();
+        this.omitted = checkpoint.getDigestOmitted();
+        this.total = checkpoint.getProcessed();
+    }
+
+    void add(Rental rental, long daysLate) {
+        total++;
+        if (sentMessages >= maxMessages) {
+            omitted++;
+            return;
+        }
+        String line = "#%d %s %s (user %d): %s (car %d), due %s, %d day(s) late\n".formatted(
+                rental.getId(),
+                escape(rental.getUser().getFirstName()),
+                escape(rental.getUser().getLastName()),
+                rental.getUser().getId(),
+                escape(rental.getCar().getModel()),
+                rental.getCar().getId(),
+                rental.getReturnDate(),
+                daysLate);
+        if (page.length() + line.length() > BODY_LIMIT) {
+            flush();
+            if (sentMessages >= maxMessages) {
+                omitted++;
+                return;
+            }
+        }
+        page.append(line);
+    }
+
+    void saveTo(JobCheckpoint checkpoint) {
+        checkpoint.setDigestPage(page.isEmpty() ? null : page.toString());
+        checkpoint.setDigestMessages(sentMessages);
+        checkpoint.setDigestOmitted(omitted);
+    }
+
+    void finish(String reportNote) {
+        if (total == 0) {
+            return;
+        }
+        String summary = "Total overdue: " + total
+                + (omitted > 0 ? ", " + omitted + " not listed" : "")
+                + (reportNote != null ? ", " + reportNote : "");
+        if (page.length() + summary.length() > BODY_LIMIT) {
+            flush();
+        }
+        page.append(summary);
+        flush();
+    }
+
+    private void flush() {
+        if (page.isEmpty()) {
+            return;
+        }
+        notificationService.notifyOverdueDigest(page.toString());
+        page.setLength(0);
+        sentMessages++;
+    }
+
+    private String escape(String value) {
+        return value == null ? "" : value.replaceAll("([_*`\\[])", "\\\\$1");
+    }
+}
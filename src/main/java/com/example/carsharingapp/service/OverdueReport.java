@@ -0,0 +1,92 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.model.Rental;
+import com.example.carsharingapp.repository.rental.RentalRepository;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+final class OverdueReport {
+    private static final String CSV_HEADER =
+            "rental_id,user_id,first_name,last_name,car_id,model,return_date,days_late";
+
+    private OverdueReport() {
+    }
+
+    static Optional<byte[]> render(RentalRepository rentalRepository,
+                                   TransactionTemplate readOnlyTransaction,
+                                   LocalDate runDate, int chunkSize, long maxBytes) {
+        Path file = null;
+        try {
+            file = Files.createTempFile("overdue-rentals-", ".csv");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                long written = write(out, CSV_HEADER, 0, maxBytes);
+                if (written < 0) {
+                    return Optional.empty();
+                }
+                long lastId = 0;
+                List<Rental> chunk;
+                do {
+                    // each chunk gets its own short transaction, the loaded rentals go with it
+                    long afterId = lastId;
+                    chunk = readOnlyTransaction.execute(status ->
+                            rentalRepository.findOverdueChunk(runDate, afterId,
+                                    Limit.of(chunkSize)));
+                    for (Rental rental : chunk) {
+                        written = write(out, row(rental, runDate), written, maxBytes);
+                        if (written < 0) {
+                            return Optional.empty();
+                        }
+                        lastId = rental.getId();
+                    }
+                } while (chunk.size() == chunkSize);
+            }
+            return Optional.of(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the overdue report", e);
+        } finally {
+            if (file != null) {
+                file.toFile().delete();
+            }
+        }
+    }
+
+    private static long write(OutputStream out, String line, long written, long maxBytes)
+            throws IOException {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (written < 0 || written + bytes.length > maxBytes) {
+            return -1;
+        }
+        out.write(bytes);
+        return written + bytes.length;
+    }
+
+    private static String row(Rental rental, LocalDate runDate) {
+        return String.join(",",
+                String.valueOf(rental.getId()),
+                String.valueOf(rental.getUser().getId()),
+                csv(rental.getUser().getFirstName()),
+                csv(rental.getUser().getLastName()),
+                String.valueOf(rental.getCar().getId()),
+                csv(rental.getCar().getModel()),
+                String.valueOf(rental.getReturnDate()),
+                String.valueOf(ChronoUnit.DAYS.between(rental.getReturnDate(), runDate)));
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
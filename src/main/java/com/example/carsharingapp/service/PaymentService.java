@@ -1,12 +1,13 @@
 package com.example.carsharingapp.service;
 
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
 import com.example.carsharingapp.dto.payment.CancelPaymentResponseDto;
 import com.example.carsharingapp.dto.payment.PaymentResponseDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface PaymentService {
-    PaymentResponseDto createPayment(Long rentalId);
+    PaymentResponseDto createPayment(Long rentalId, String idempotencyKey);
 
     PaymentResponseDto confirmSuccess(String sessionId);
 
@@ -14,4 +15,6 @@ public interface PaymentService {
 
     Page<PaymentResponseDto> getPayments(Long userId, Pageable pageable);
 
+    CursorPageResponseDto<PaymentResponseDto> getPaymentsAfter(Long userId, String after, int size);
+
 }
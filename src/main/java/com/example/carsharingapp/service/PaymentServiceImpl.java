@@ -1,84 +1,104 @@
 package com.example.carsharingapp.service;
 
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
+import com.example.carsharingapp.dto.page.PageCursor;
 import com.example.carsharingapp.dto.payment.CancelPaymentResponseDto;
 import com.example.carsharingapp.dto.payment.PaymentResponseDto;
 import com.example.carsharingapp.exceptions.EntityNotFoundException;
+import com.example.carsharingapp.exceptions.IdempotencyKeyConflictException;
 import com.example.carsharingapp.exceptions.PaymentProcessingException;
 import com.example.carsharingapp.mapper.PaymentMapper;
+import com.example.carsharingapp.model.Car;
 import com.example.carsharingapp.model.Payment;
 import com.example.carsharingapp.model.PaymentStatus;
 import com.example.carsharingapp.model.PaymentType;
 import com.example.carsharingapp.model.Rental;
 import com.example.carsharingapp.repository.payment.PaymentRepository;
 import com.example.carsharingapp.repository.rental.RentalRepository;
+import com.stripe.exception.ApiConnectionException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
-import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class PaymentServiceImpl implements PaymentService {
+    private static final List<PaymentStatus> OPEN_STATUSES =
+            List.of(PaymentStatus.INITIATED, PaymentStatus.PENDING);
 
     private final PaymentRepository paymentRepository;
     private final RentalRepository rentalRepository;
     private final PaymentMapper paymentMapper;
     private final StripeService stripeService;
-    private final NotificationService notificationService;
+    private final PlatformTransactionManager transactionManager;
+    private final PendingPaymentIndex pendingPaymentIndex;
+    private final PricingEngine pricingEngine;
 
-    @Override
-    public PaymentResponseDto createPayment(Long rentalId) {
-        Rental rental = rentalRepository.findById(rentalId)
-                .orElseThrow(() ->
-                        new EntityNotFoundException(
-                                "Rental with id " + rentalId + " not found",
-                                new Throwable("Cause: rental not present in the database")
-                        )
-                );
+    @Value("${payment.intent.stale-after:2m}")
+    private Duration intentStaleAfter;
 
-        BigDecimal amount = calculateAmount(rental);
+    @Value("${payment.intent.abandon-after:23h}")
+    private Duration intentAbandonAfter;
 
-        Session session;
-        try {
-            session = stripeService.createPaymentSession(amount, "Car Rental Payment");
-        } catch (StripeException e) {
-            throw new PaymentProcessingException("Failed to create Stripe payment session",e);
-        }
-
-        PaymentType type = rental.getReturnDate().isBefore(LocalDate.now())
-                ? PaymentType.FINE
-                : PaymentType.PAYMENT;
+    @Value("${payment.intent.reconcile-batch-size:100}")
+    private int reconcileBatchSize;
 
-        Payment payment = new Payment();
-        payment.setRental(rental);
-        payment.setAmount(amount);
-        payment.setType(type);
-        payment.setStatus(PaymentStatus.PENDING);
-        payment.setSessionId(session.getId());
-        payment.setSessionUrl(session.getUrl());
+    @Override
+    public PaymentResponseDto createPayment(Long rentalId, String idempotencyKey) {
+        Payment payment = new TransactionTemplate(transactionManager)
+                .execute(status -> reserveIntent(rentalId, idempotencyKey));
+        if (payment.getStatus() == PaymentStatus.INITIATED) {
+            openSession(payment);
+        }
+        return paymentMapper.toDto(payment);
+    }
 
-        return paymentMapper.toDto(paymentRepository.save(payment));
+    @Scheduled(fixedDelayString = "${payment.intent.reconcile-interval:5m}")
+    public void reconcileOrphanedIntents() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Payment> orphaned = paymentRepository.findAllByStatusAndCreatedAtBeforeOrderByIdAsc(
+                PaymentStatus.INITIATED, now.minus(intentStaleAfter),
+                Limit.of(reconcileBatchSize));
+        for (Payment payment : orphaned) {
+            // Stripe forgets idempotency keys after 24h, a later retry could open a second session
+            if (payment.getCreatedAt().isBefore(now.minus(intentAbandonAfter))) {
+                paymentRepository.markFailed(payment.getId());
+                continue;
+            }
+            try {
+                openSession(payment);
+            } catch (PaymentProcessingException e) {
+                // either marked FAILED or left INITIATED for the next run
+            }
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PaymentResponseDto confirmSuccess(String sessionId) {
-        Payment payment = paymentRepository.findBySessionId(sessionId)
+        // the status itself is applied from Stripe webhooks, the redirect only shows it
+        return paymentRepository.findViewBySessionId(sessionId)
                 .orElseThrow(() -> new EntityNotFoundException("Payment not found"));
-        payment.setStatus(PaymentStatus.PAID);
-        notificationService
-                .notifyPaymentSuccess(payment.getId(), payment.getRental().getUser().getId(),
-                "Amount: " + payment.getAmount());
-        return paymentMapper.toDto(paymentRepository.save(payment));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public CancelPaymentResponseDto cancelPayment(String sessionId) {
         return paymentRepository.findBySessionId(sessionId)
                 .map(this::buildPendingPaymentResponse)
@@ -86,29 +106,103 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<PaymentResponseDto> getPayments(Long userId, Pageable pageable) {
-        return paymentRepository.findAllByRental_User_Id(userId, pageable)
-                .map(paymentMapper::toDto);
+        return paymentRepository.findUserPaymentPage(userId, pageable);
     }
 
-    private BigDecimal calculateAmount(Rental rental) {
-        BigDecimal dailyFee = rental.getCar().getDailyFee();
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<PaymentResponseDto> getPaymentsAfter(Long userId,
+                                                                      String after,
+                                                                      int size) {
+        PageCursor cursor = PageCursor.decode(after);
+        int pageSize = PageCursor.pageSize(size);
+        List<Payment> payments = paymentRepository
+                .findAllByRental_User_IdAndIdGreaterThanOrderByIdAsc(
+                        userId, cursor == null ? 0L : cursor.id(), Limit.of(pageSize + 1));
+        return CursorPageResponseDto.of(payments, pageSize, paymentMapper::toDto,
+                payment -> PageCursor.encode(payment.getId()));
+    }
 
-        long daysRented = ChronoUnit.DAYS.between(rental.getRentalDate(), rental.getReturnDate());
-        if (daysRented <= 0) {
-            daysRented = 1;
+    private Payment reserveIntent(Long rentalId, String idempotencyKey) {
+        Rental rental = rentalRepository.findWithCarForUpdateById(rentalId)
+                .orElseThrow(() ->
+                        new EntityNotFoundException(
+                                "Rental with id " + rentalId + " not found",
+                                new Throwable("Cause: rental not present in the database")
+                        )
+                );
+
+        Optional<Payment> replayed = idempotencyKey == null
+                ? Optional.empty()
+                : paymentRepository.findByIdempotencyKey(idempotencyKey);
+        if (replayed.isPresent()) {
+            if (!replayed.get().getRental().getId().equals(rentalId)) {
+                throw new IdempotencyKeyConflictException(
+                        "Idempotency key was already used for another rental");
+            }
+            return replayed.get();
         }
-        BigDecimal baseAmount = dailyFee.multiply(BigDecimal.valueOf(daysRented));
-
-        if (LocalDate.now().isAfter(rental.getReturnDate())) {
-            long daysLate = ChronoUnit.DAYS.between(rental.getReturnDate(), LocalDate.now());
-            BigDecimal fine = dailyFee
-                    .multiply(BigDecimal.valueOf(0.2))
-                    .multiply(BigDecimal.valueOf(daysLate));
-            return baseAmount.add(fine);
+        // a fresh key must not open a second intent while the rental still has one
+        Optional<Payment> open =
+                paymentRepository.findFirstByRental_IdAndStatusIn(rentalId, OPEN_STATUSES);
+        if (open.isPresent()) {
+            return open.get();
         }
 
-        return baseAmount;
+        PaymentType type = rental.getReturnDate().isBefore(LocalDate.now())
+                ? PaymentType.FINE
+                : PaymentType.PAYMENT;
+
+        Payment payment = new Payment();
+        payment.setRental(rental);
+        payment.setAmount(calculateAmount(rental));
+        payment.setType(type);
+        payment.setStatus(PaymentStatus.INITIATED);
+        payment.setIdempotencyKey(idempotencyKey == null
+                ? UUID.randomUUID().toString()
+                : idempotencyKey);
+        payment.setCreatedAt(LocalDateTime.now());
+        return paymentRepository.save(payment);
+    }
+
+    private void openSession(Payment payment) {
+        Session session;
+        try {
+            session = stripeService.createPaymentSession(
+                    PricingEngine.toCents(payment.getAmount()),
+                    "Car Rental Payment", payment.getIdempotencyKey());
+        } catch (StripeException e) {
+            if (!isRetryable(e)) {
+                paymentRepository.markFailed(payment.getId());
+                payment.setStatus(PaymentStatus.FAILED);
+            }
+            throw new PaymentProcessingException("Failed to create Stripe payment session",e);
+        }
+        if (paymentRepository.attachSession(payment.getId(), session.getId(),
+                session.getUrl()) == 1) {
+            pendingPaymentIndex.paymentPending(payment.getRental().getUser().getId(),
+                    payment.getId());
+        }
+        payment.setSessionId(session.getId());
+        payment.setSessionUrl(session.getUrl());
+        payment.setStatus(PaymentStatus.PENDING);
+    }
+
+    private boolean isRetryable(StripeException e) {
+        Integer statusCode = e.getStatusCode();
+        return e instanceof ApiConnectionException
+                || statusCode == null
+                || statusCode == 429
+                || statusCode >= 500;
+    }
+
+    private BigDecimal calculateAmount(Rental rental) {
+        Car car = rental.getCar();
+        long cents = pricingEngine.totalCents(PricingEngine.toCents(car.getDailyFee()),
+                car.getType(), rental.getRentalDate(), rental.getReturnDate(), LocalDate.now());
+        return PricingEngine.fromCents(cents);
     }
 
     private CancelPaymentResponseDto buildPendingPaymentResponse(Payment payment) {
@@ -0,0 +1,136 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.model.PaymentStatus;
+import com.example.carsharingapp.repository.payment.PaymentOwnerView;
+import com.example.carsharingapp.repository.payment.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class PendingPaymentIndex {
+    private final PaymentRepository paymentRepository;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong drift = new AtomicLong();
+    private final AtomicLong users = new AtomicLong();
+
+    private volatile Map<Long, Set<Long>> pendingByUser;
+
+    public PendingPaymentIndex(PaymentRepository paymentRepository,
+                               MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("payment.pending-index.drift", drift);
+        meterRegistry.gauge("payment.pending-index.users", users);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${payment.pending-index.check-interval:10m}",
+            initialDelayString = "${payment.pending-index.check-interval:10m}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            Map<Long, Set<Long>> loaded = new ConcurrentHashMap<>();
+            for (PaymentOwnerView payment : paymentRepository.findAllPendingOwners()) {
+                loaded.computeIfAbsent(payment.userId(), id -> ConcurrentHashMap.newKeySet())
+                        .add(payment.paymentId());
+            }
+            if (pendingByUser != null) {
+                long mismatched = countMismatched(pendingByUser, loaded);
+                drift.set(mismatched);
+                meterRegistry.counter("payment.pending-index.repaired").increment(mismatched);
+            }
+            pendingByUser = loaded;
+            users.set(loaded.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean hasPending(Long userId) {
+        Map<Long, Set<Long>> current = pendingByUser;
+        if (current == null) {
+            return paymentRepository.existsByRental_User_IdAndStatus(userId,
+                    PaymentStatus.PENDING);
+        }
+        return current.containsKey(userId);
+    }
+
+    public void paymentPending(Long userId, Long paymentId) {
+        afterCommit(current -> current
+                .computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet())
+                .add(paymentId));
+    }
+
+    public void paymentSettled(Long userId, Long paymentId) {
+        afterCommit(current -> current.computeIfPresent(userId, (id, payments) -> {
+            payments.remove(paymentId);
+            return payments.isEmpty() ? null : payments;
+        }));
+    }
+
+    private long countMismatched(Map<Long, Set<Long>> indexed, Map<Long, Set<Long>> loaded) {
+        Set<Long> indexedIds = flatten(indexed);
+        Set<Long> loadedIds = flatten(loaded);
+        long mismatched = 0;
+        for (Long id : indexedIds) {
+            if (!loadedIds.contains(id)) {
+                mismatched++;
+            }
+        }
+        for (Long id : loadedIds) {
+            if (!indexedIds.contains(id)) {
+                mismatched++;
+            }
+        }
+        return mismatched;
+    }
+
+    private Set<Long> flatten(Map<Long, Set<Long>> byUser) {
+        Set<Long> ids = new HashSet<>();
+        byUser.values().forEach(ids::addAll);
+        return ids;
+    }
+
+    private void afterCommit(IndexUpdate update) {
+        Runnable apply = () -> {
+            writeLock.lock();
+            try {
+                if (pendingByUser != null) {
+                    update.apply(pendingByUser);
+                    users.set(pendingByUser.size());
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            apply.run();
+                        }
+                    });
+        } else {
+            apply.run();
+        }
+    }
+
+    private interface IndexUpdate {
+        void apply(Map<Long, Set<Long>> pendingByUser);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.exceptions.PaymentGatewayUnavailableException;
+import com.example.carsharingapp.model.PaymentStatus;
+import com.example.carsharingapp.repository.payment.PaymentRepository;
+import com.example.carsharingapp.repository.payment.PendingPaymentView;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class PendingPaymentReconciler {
+    private static final String UPDATE_STATUS =
+            "UPDATE payments SET status = ? WHERE id = ? AND status = 'PENDING'";
+
+    private final PaymentRepository paymentRepository;
+    private final StripeService stripeService;
+    private final NotificationService notificationService;
+    private final PendingPaymentIndex pendingPaymentIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Timer runTimer;
+    private final Counter checked;
+    private final Counter errors;
+
+    @Value("${payment.reconcile.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${payment.reconcile.min-age:15m}")
+    private Duration minAge;
+
+    @Value("${payment.reconcile.expire-after:2h}")
+    private Duration expireAfter;
+
+    public PendingPaymentReconciler(PaymentRepository paymentRepository,
+                                    StripeService stripeService,
+                                    NotificationService notificationService,
+                                    PendingPaymentIndex pendingPaymentIndex,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Qualifier("paymentReconcileExecutor") Executor executor,
+                                    MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.stripeService = stripeService;
+        this.notificationService = notificationService;
+        this.pendingPaymentIndex = pendingPaymentIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("payment.reconcile.lag.seconds", lagSeconds);
+        this.runTimer = Timer.builder("payment.reconcile.run")
+                .description("Time to reconcile all stale PENDING payments with Stripe")
+                .register(meterRegistry);
+        this.checked = meterRegistry.counter("payment.reconcile.checked");
+        this.errors = meterRegistry.counter("payment.reconcile.errors");
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconcile.interval:10m}",
+            initialDelayString = "${payment.reconcile.initial-delay:1m}")
+    public void reconcilePendingPayments() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            runTimer.record(this::reconcile);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        long afterId = 0;
+        List<PendingPaymentView> chunk;
+        try {
+            do {
+                chunk = paymentRepository.findPendingChunk(afterId, now.minus(minAge),
+                        Limit.of(chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                applyChunk(chunk, now);
+                afterId = chunk.get(chunk.size() - 1).paymentId();
+            } while (chunk.size() == chunkSize);
+        } catch (PaymentGatewayUnavailableException e) {
+            // Stripe is down, the remaining payments are picked up by the next run
+        }
+        lagSeconds.set(paymentRepository.findOldestPendingCreatedAt()
+                .map(oldest -> Duration.between(oldest, LocalDateTime.now()).toSeconds())
+                .orElse(0L));
+    }
+
+    private void applyChunk(List<PendingPaymentView> chunk, LocalDateTime now) {
+        List<CompletableFuture<PaymentStatus>> lookups = chunk.stream()
+                .map(payment -> CompletableFuture.supplyAsync(() -> resolve(payment, now),
+                        executor))
+                .toList();
+        List<PendingPaymentView> changed = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            PaymentStatus status = join(lookups.get(i));
+            if (status != null) {
+                changed.add(chunk.get(i));
+                updates.add(new Object[] {status.name(), chunk.get(i).paymentId()});
+            }
+        }
+        checked.increment(chunk.size());
+        if (updates.isEmpty()) {
+            return;
+        }
+        // the outbox rows and index updates commit or roll back with the status batch
+        transactionTemplate.executeWithoutResult(status -> applyUpdates(changed, updates));
+    }
+
+    private void applyUpdates(List<PendingPaymentView> changed, List<Object[]> updates) {
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS, updates);
+        for (int i = 0; i < counts.length; i++) {
+            // zero means the webhook settled this payment first
+            if (counts[i] == 0) {
+                continue;
+            }
+            PendingPaymentView payment = changed.get(i);
+            String status = (String) updates.get(i)[0];
+            pendingPaymentIndex.paymentSettled(payment.userId(), payment.paymentId());
+            meterRegistry.counter("payment.reconcile.updated", "status", status.toLowerCase())
+                    .increment();
+            if (PaymentStatus.PAID.name().equals(status)) {
+                notificationService.notifyPaymentSuccess(payment.paymentId(), payment.userId(),
+                        "Amount: " + payment.amount());
+            }
+        }
+    }
+
+    private PaymentStatus resolve(PendingPaymentView payment, LocalDateTime now) {
+        if (payment.sessionId() == null) {
+            return null;
+        }
+        try {
+            Session session = stripeService.retrieveSession(payment.sessionId());
+            if ("complete".equals(session.getStatus())) {
+                return "unpaid".equals(session.getPaymentStatus()) ? null : PaymentStatus.PAID;
+            }
+            if ("expired".equals(session.getStatus())) {
+                return PaymentStatus.EXPIRED;
+            }
+            if (payment.createdAt() != null
+                    && payment.createdAt().isBefore(now.minus(expireAfter))) {
+                // frees the user to rent again instead of waiting for Stripe's 24h expiry
+                Session expired = stripeService.expireSession(payment.sessionId());
+                return "expired".equals(expired.getStatus()) ? PaymentStatus.EXPIRED : null;
+            }
+            return null;
+        } catch (StripeException e) {
+            errors.increment();
+            return null;
+        }
+    }
+
+    private PaymentStatus join(CompletableFuture<PaymentStatus> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
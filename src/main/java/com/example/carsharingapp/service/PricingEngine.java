@@ -0,0 +1,64 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.model.CarType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PricingEngine {
+    private static final long BASIS_POINTS = 10_000;
+
+    private final long[] fineBasisPoints = new long[CarType.values().length];
+
+    public PricingEngine(
+            @Value("${pricing.fine-multiplier.sedan:${pricing.fine-multiplier.default:0.2}}")
+            BigDecimal sedanFine,
+            @Value("${pricing.fine-multiplier.suv:${pricing.fine-multiplier.default:0.2}}")
+            BigDecimal suvFine,
+            @Value("${pricing.fine-multiplier.hatchback:${pricing.fine-multiplier.default:0.2}}")
+            BigDecimal hatchbackFine,
+            @Value("${pricing.fine-multiplier.universal:${pricing.fine-multiplier.default:0.2}}")
+            BigDecimal universalFine) {
+        fineBasisPoints[CarType.SEDAN.ordinal()] = toBasisPoints(sedanFine);
+        fineBasisPoints[CarType.SUV.ordinal()] = toBasisPoints(suvFine);
+        fineBasisPoints[CarType.HATCHBACK.ordinal()] = toBasisPoints(hatchbackFine);
+        fineBasisPoints[CarType.UNIVERSAL.ordinal()] = toBasisPoints(universalFine);
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public long totalCents(long dailyFeeCents, CarType type, LocalDate rentalDate,
+                           LocalDate returnDate, LocalDate today) {
+        long rentedDays = returnDate.toEpochDay() - rentalDate.toEpochDay();
+        long lateDays = today.toEpochDay() - returnDate.toEpochDay();
+        return Math.addExact(rentalCents(dailyFeeCents, rentedDays),
+                fineCents(dailyFeeCents, type, lateDays));
+    }
+
+    public long rentalCents(long dailyFeeCents, long rentedDays) {
+        return Math.multiplyExact(dailyFeeCents, Math.max(1, rentedDays));
+    }
+
+    public long fineCents(long dailyFeeCents, CarType type, long lateDays) {
+        if (lateDays <= 0) {
+            return 0;
+        }
+        long scaled = Math.multiplyExact(Math.multiplyExact(dailyFeeCents, lateDays),
+                fineBasisPoints[type.ordinal()]);
+        // half-up to whole cents, amounts are never negative
+        return (scaled + BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+
+    private long toBasisPoints(BigDecimal multiplier) {
+        return multiplier.movePointRight(4).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
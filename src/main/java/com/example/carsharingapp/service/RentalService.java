@@ -1,13 +1,16 @@
 package com.example.carsharingapp.service;
 
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
 import com.example.carsharingapp.dto.rental.CreateRentalRequestDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteRequestDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteResponseDto;
 import com.example.carsharingapp.dto.rental.RentalResponseDto;
-import com.example.carsharingapp.model.User;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface RentalService {
-    RentalResponseDto createRental(User user, CreateRentalRequestDto requestDto);
+    RentalResponseDto createRental(Long userId, CreateRentalRequestDto requestDto);
 
     Page<RentalResponseDto> getUserRentals(Long userId, Boolean active, Pageable pageable);
 
@@ -17,4 +20,12 @@ public interface RentalService {
 
     Page<RentalResponseDto> getAllRentals(Boolean active, Long userId, Pageable pageable);
 
+    CursorPageResponseDto<RentalResponseDto> getUserRentalsAfter(Long userId, Boolean active,
+                                                                 String after, int size);
+
+    CursorPageResponseDto<RentalResponseDto> getAllRentalsAfter(Boolean active, Long userId,
+                                                                String after, int size);
+
+    List<RentalQuoteResponseDto> quoteRentals(RentalQuoteRequestDto requestDto);
+
 }
@@ -1,23 +1,38 @@
 package com.example.carsharingapp.service;
 
+import static com.example.carsharingapp.config.CacheConfig.CARS_CACHE;
+import static com.example.carsharingapp.config.CacheConfig.CAR_PAGES_CACHE;
+
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
+import com.example.carsharingapp.dto.page.PageCursor;
 import com.example.carsharingapp.dto.rental.CreateRentalRequestDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteItemDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteRequestDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteResponseDto;
 import com.example.carsharingapp.dto.rental.RentalResponseDto;
 import com.example.carsharingapp.exceptions.EntityNotFoundException;
+import com.example.carsharingapp.exceptions.InvalidDateRangeException;
+import com.example.carsharingapp.exceptions.PendingPaymentsException;
 import com.example.carsharingapp.mapper.RentalMapper;
 import com.example.carsharingapp.model.Car;
-import com.example.carsharingapp.model.PaymentStatus;
+import com.example.carsharingapp.model.CarType;
 import com.example.carsharingapp.model.Rental;
-import com.example.carsharingapp.model.User;
 import com.example.carsharingapp.repository.car.CarRepository;
-import com.example.carsharingapp.repository.payment.PaymentRepository;
 import com.example.carsharingapp.repository.rental.RentalRepository;
-import jakarta.transaction.Transactional;
+import com.example.carsharingapp.repository.user.UserRepository;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -27,49 +42,51 @@ public class RentalServiceImpl implements RentalService {
     private final CarRepository carRepository;
     private final RentalMapper rentalMapper;
     private final NotificationService notificationService;
-    private final PaymentRepository paymentRepository;
-
-    @Transactional
+    private final PendingPaymentIndex pendingPaymentIndex;
+    private final CacheManager cacheManager;
+    private final CarAvailabilityService carAvailabilityService;
+    private final UserRepository userRepository;
+    private final PricingEngine pricingEngine;
+
+    // the rejection is thrown before any write and must keep its manager notification
+    @Transactional(noRollbackFor = PendingPaymentsException.class)
     @Override
-    public RentalResponseDto createRental(User user, CreateRentalRequestDto requestDto) {
+    public RentalResponseDto createRental(Long userId, CreateRentalRequestDto requestDto) {
         Car car = carRepository.findById(requestDto.getCarId())
                 .orElseThrow(() -> new EntityNotFoundException("Car not found"));
 
-        boolean hasPendingPayment = paymentRepository
-                .existsByRental_User_IdAndStatus(user.getId(), PaymentStatus.PENDING);
-        if (hasPendingPayment) {
+        if (pendingPaymentIndex.hasPending(userId)) {
             notificationService.notifyGeneralMessage(
-                    "User " + user.getId() + " attempted to create rental but has pending payments."
+                    "User " + userId + " attempted to create rental but has pending payments."
             );
-            throw new IllegalStateException(
+            throw new PendingPaymentsException(
                     "You cannot borrow a car until all pending payments are cleared");
         }
-        if (car.getInventory() <= 0) {
+        if (carRepository.reserveUnit(car.getId()) == 0) {
             throw new IllegalStateException("Car is not available");
         }
 
-        car.setInventory(car.getInventory() - 1);
-
         Rental rental = new Rental();
         rental.setCar(car);
-        rental.setUser(user);
+        rental.setUser(userRepository.getReferenceById(userId));
         rental.setRentalDate(LocalDate.now());
         rental.setReturnDate(requestDto.getReturnDate());
 
         rentalRepository.save(rental);
-        carRepository.save(car);
+        evictCachedCar(car.getId());
+        carAvailabilityService.rentalStarted(rental);
 
         String summary = String.format("Car: %s, from %s to %s",
                 rental.getCar().getModel(), rental.getRentalDate(), rental.getReturnDate());
-        notificationService.notifyNewRental(rental.getId(), user.getId(), summary);
+        notificationService.notifyNewRental(rental.getId(), userId, summary);
 
         return rentalMapper.toDto(rental);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Page<RentalResponseDto> getUserRentals(Long userId, Boolean active, Pageable pageable) {
-        Page<Rental> rentals = rentalRepository.findAllByUserIdAndActive(userId, active, pageable);
-        return rentals.map(rentalMapper::toDto);
+        return rentalRepository.findUserRentalPage(userId, active, pageable);
     }
 
     @Override
@@ -84,6 +101,7 @@ public class RentalServiceImpl implements RentalService {
         return rentalMapper.toDto(rental);
     }
 
+    @Transactional
     @Override
     public RentalResponseDto returnCar(Long rentalId, Long userId) {
         Rental rental = rentalRepository.findById(rentalId)
@@ -93,32 +111,107 @@ public class RentalServiceImpl implements RentalService {
             throw new AccessDeniedException("Not your rental");
         }
 
-        if (!rental.isActive()) {
+        LocalDate returnDate = LocalDate.now();
+        if (!rental.isActive() || rentalRepository.closeRental(rentalId, returnDate) == 0) {
             throw new IllegalStateException("Rental already closed");
         }
 
         rental.setActive(false);
-        rental.setActualReturnDate(LocalDate.now());
-
-        Car car = rental.getCar();
-        car.setInventory(car.getInventory() + 1);
+        rental.setActualReturnDate(returnDate);
 
-        rentalRepository.save(rental);
-        carRepository.save(car);
+        Long carId = rental.getCar().getId();
+        carRepository.releaseUnit(carId);
+        evictCachedCar(carId);
+        carAvailabilityService.rentalClosed(carId, rental.getId());
 
         return rentalMapper.toDto(rental);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Page<RentalResponseDto> getAllRentals(Boolean active, Long userId, Pageable pageable) {
-        Page<Rental> rentals;
+        if (userId != null) {
+            return rentalRepository.findUserRentalPage(userId, active, pageable);
+        }
+        return rentalRepository.findRentalPage(active, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPageResponseDto<RentalResponseDto> getUserRentalsAfter(Long userId,
+                                                                        Boolean active,
+                                                                        String after,
+                                                                        int size) {
+        PageCursor cursor = PageCursor.decode(after);
+        int pageSize = PageCursor.pageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Rental> rentals = cursor == null
+                ? rentalRepository.findAllByUserIdAndActiveOrderByRentalDateAscIdAsc(
+                        userId, active, limit)
+                : rentalRepository.findUserRentalsAfter(
+                        userId, active, cursor.requireDate(), cursor.id(), limit);
+        return toCursorPage(rentals, pageSize);
+    }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPageResponseDto<RentalResponseDto> getAllRentalsAfter(Boolean active,
+                                                                       Long userId,
+                                                                       String after,
+                                                                       int size) {
         if (userId != null) {
-            rentals = rentalRepository.findAllByUserIdAndActive(userId, active, pageable);
-        } else {
-            rentals = rentalRepository.findAllByActive(active, pageable);
+            return getUserRentalsAfter(userId, active, after, size);
+        }
+        PageCursor cursor = PageCursor.decode(after);
+        int pageSize = PageCursor.pageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Rental> rentals = cursor == null
+                ? rentalRepository.findAllByActiveOrderByRentalDateAscIdAsc(active, limit)
+                : rentalRepository.findRentalsAfter(
+                        active, cursor.requireDate(), cursor.id(), limit);
+        return toCursorPage(rentals, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RentalQuoteResponseDto> quoteRentals(RentalQuoteRequestDto requestDto) {
+        List<RentalQuoteItemDto> items = requestDto.getItems();
+        Map<Long, QuotedCar> cars = new HashMap<>();
+        for (Car car : carRepository.findAllById(
+                items.stream().map(RentalQuoteItemDto::getCarId).distinct().toList())) {
+            cars.put(car.getId(), new QuotedCar(car.getId(), car.getType(),
+                    PricingEngine.toCents(car.getDailyFee())));
         }
+        List<RentalQuoteResponseDto> quotes = new ArrayList<>(items.size());
+        for (RentalQuoteItemDto item : items) {
+            QuotedCar car = cars.get(item.getCarId());
+            if (car == null) {
+                throw new EntityNotFoundException("Car not found: " + item.getCarId());
+            }
+            if (item.getReturnDate().isBefore(item.getRentalDate())) {
+                throw new InvalidDateRangeException("Return date cannot be before rental date");
+            }
+            // a quote prices the planned rental, so "today" never makes it late
+            long cents = pricingEngine.totalCents(car.dailyFeeCents(), car.type(),
+                    item.getRentalDate(), item.getReturnDate(), item.getRentalDate());
+            quotes.add(new RentalQuoteResponseDto(car.id(), item.getRentalDate(),
+                    item.getReturnDate(), PricingEngine.fromCents(cents)));
+        }
+        return quotes;
+    }
+
+    private record QuotedCar(Long id, CarType type, long dailyFeeCents) {
+    }
+
+    private CursorPageResponseDto<RentalResponseDto> toCursorPage(List<Rental> rentals,
+                                                                  int pageSize) {
+        return CursorPageResponseDto.of(rentals, pageSize, rentalMapper::toDto,
+                rental -> PageCursor.encode(rental.getRentalDate(), rental.getId()));
+    }
 
-        return rentals.map(rentalMapper::toDto);
+    private void evictCachedCar(Long carId) {
+        // the available inventory changed, the evictions apply once the rental commits
+        cacheManager.getCache(CARS_CACHE).evict(carId);
+        cacheManager.getCache(CAR_PAGES_CACHE).clear();
     }
 }
@@ -0,0 +1,72 @@
+package com.example.carsharingapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StripeCircuitBreaker {
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    @Value("${stripe.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${stripe.circuit-breaker.open-duration:30s}")
+    private Duration openDuration;
+
+    public StripeCircuitBreaker(MeterRegistry meterRegistry) {
+        meterRegistry.gauge("stripe.circuit.state", this, breaker -> breaker.state().ordinal());
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDuration.toNanos()) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                // let a single trial call through to probe whether Stripe recovered
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+}
@@ -1,20 +1,39 @@
 package com.example.carsharingapp.service;
 
 import com.example.carsharingapp.config.StripeConfig;
+import com.example.carsharingapp.exceptions.PaymentGatewayUnavailableException;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.checkout.SessionCreateParams;
-import java.math.BigDecimal;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
 import org.springframework.stereotype.Service;
 
 @Service
-@RequiredArgsConstructor
 public class StripeService {
+    private static final String CREATE_SESSION = "checkout.session.create";
+    private static final String RETRIEVE_SESSION = "checkout.session.retrieve";
+    private static final String EXPIRE_SESSION = "checkout.session.expire";
 
     private final StripeConfig stripeConfig;
+    private final StripeClient stripeClient;
+    private final StripeCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
 
-    public Session createPaymentSession(BigDecimal amount, String productName)
+    public StripeService(StripeConfig stripeConfig, StripeClient stripeClient,
+                         StripeCircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.stripeConfig = stripeConfig;
+        this.stripeClient = stripeClient;
+        this.circuitBreaker = circuitBreaker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Session createPaymentSession(long amountCents, String productName,
+                                        String idempotencyKey)
             throws StripeException {
         SessionCreateParams params = SessionCreateParams.builder()
                 .setMode(SessionCreateParams.Mode.PAYMENT)
@@ -28,9 +47,7 @@ public class StripeService {
                                                 .LineItem
                                                 .PriceData.builder()
                                                 .setCurrency("usd")
-                                                .setUnitAmount(
-                                                        amount.multiply(BigDecimal.valueOf(100))
-                                                                .longValue())
+                                                .setUnitAmount(amountCents)
                                                 .setProductData(
                                                         SessionCreateParams
                                                                 .LineItem
@@ -41,7 +58,74 @@ public class StripeService {
                                 .build())
                 .build();
 
-        return Session.create(params);
+        return call(CREATE_SESSION, () -> stripeClient.checkout().sessions().create(params,
+                RequestOptions.builder()
+                        .setIdempotencyKey(idempotencyKey)
+                        .build()));
+    }
+
+    public Session retrieveSession(String sessionId) throws StripeException {
+        return call(RETRIEVE_SESSION, () -> stripeClient.checkout().sessions()
+                .retrieve(sessionId));
     }
 
+    public Session expireSession(String sessionId) throws StripeException {
+        return call(EXPIRE_SESSION, () -> stripeClient.checkout().sessions()
+                .expire(sessionId));
+    }
+
+    private <T> T call(String operation, StripeCall<T> stripeCall) throws StripeException {
+        if (!circuitBreaker.tryAcquire()) {
+            record(operation, "rejected", 0);
+            throw new PaymentGatewayUnavailableException(
+                    "Payment provider is temporarily unavailable",
+                    circuitBreaker.getOpenDuration());
+        }
+        long start = System.nanoTime();
+        try {
+            T result = stripeCall.execute();
+            circuitBreaker.onSuccess();
+            record(operation, "success", System.nanoTime() - start);
+            return result;
+        } catch (StripeException e) {
+            String outcome = outcome(e);
+            if ("client_error".equals(outcome)) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+            record(operation, outcome, System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            // anything unexpected still has to settle the call, or a half-open trial never ends
+            circuitBreaker.onFailure();
+            record(operation, "unexpected_error", System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private String outcome(StripeException e) {
+        Integer statusCode = e.getStatusCode();
+        if (e instanceof ApiConnectionException || statusCode == null) {
+            return "network_error";
+        }
+        if (statusCode == 429 || statusCode >= 500) {
+            return "server_error";
+        }
+        return "client_error";
+    }
+
+    private void record(String operation, String outcome, long nanos) {
+        Timer.builder("stripe.requests")
+                .description("Latency of Stripe API calls including SDK retries")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @FunctionalInterface
+    private interface StripeCall<T> {
+        T execute() throws StripeException;
+    }
 }
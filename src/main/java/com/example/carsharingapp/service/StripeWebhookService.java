@@ -0,0 +1,199 @@
+package com.example.carsharingapp.service;
+
+import com.example.carsharingapp.exceptions.WebhookSignatureException;
+import com.example.carsharingapp.model.PaymentStatus;
+import com.example.carsharingapp.model.StripeEvent;
+import com.example.carsharingapp.repository.payment.PaymentOwnerView;
+import com.example.carsharingapp.repository.payment.PaymentRepository;
+import com.example.carsharingapp.repository.payment.StripeEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.net.Webhook;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class StripeWebhookService {
+    private final StripeEventRepository stripeEventRepository;
+    private final PaymentRepository paymentRepository;
+    private final NotificationService notificationService;
+    private final PendingPaymentIndex pendingPaymentIndex;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer batchTimer;
+
+    @Value("${stripe.webhook.secret}")
+    private String webhookSecret;
+
+    @Value("${stripe.webhook.tolerance:300s}")
+    private Duration tolerance;
+
+    @Value("${stripe.webhook.batch-size:100}")
+    private int batchSize;
+
+    @Value("${stripe.webhook.retention:7d}")
+    private Duration retention;
+
+    @Value("${stripe.webhook.retry-delay:5s}")
+    private Duration retryDelay;
+
+    @Value("${stripe.webhook.max-attempts:10}")
+    private int maxAttempts;
+
+    public StripeWebhookService(StripeEventRepository stripeEventRepository,
+                                PaymentRepository paymentRepository,
+                                NotificationService notificationService,
+                                PendingPaymentIndex pendingPaymentIndex,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.stripeEventRepository = stripeEventRepository;
+        this.paymentRepository = paymentRepository;
+        this.notificationService = notificationService;
+        this.pendingPaymentIndex = pendingPaymentIndex;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchTimer = Timer.builder("stripe.webhook.apply.batch")
+                .description("Time to apply one batch of Stripe events to payments")
+                .register(meterRegistry);
+    }
+
+    public void receive(String payload, String signature) {
+        Event event;
+        try {
+            event = Webhook.constructEvent(payload, signature, webhookSecret,
+                    tolerance.toSeconds());
+        } catch (SignatureVerificationException e) {
+            count("invalid_signature");
+            throw new WebhookSignatureException("Invalid Stripe signature", e);
+        }
+        JsonNode session = readSession(event);
+        PaymentStatus target = targetStatus(event.getType(), session);
+        if (target == null) {
+            count("ignored");
+            return;
+        }
+        int inserted = stripeEventRepository.insertIfAbsent(event.getId(), event.getType(),
+                session.path("id").asText(), target.name(), LocalDateTime.now());
+        count(inserted == 0 ? "duplicate" : "accepted");
+    }
+
+    @Scheduled(fixedDelayString = "${stripe.webhook.apply-interval:1s}")
+    public void applyEvents() {
+        int applied;
+        do {
+            applied = batchTimer.record(() -> transactionTemplate.execute(status ->
+                    applyBatch()));
+        } while (applied == batchSize);
+    }
+
+    @Scheduled(cron = "${stripe.webhook.purge-cron:0 30 3 * * *}")
+    public void purgeProcessedEvents() {
+        // rows must outlive Stripe's retry window, otherwise a late redelivery is applied again
+        stripeEventRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    private int applyBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StripeEvent> events = stripeEventRepository
+                .findDueForUpdate(now, Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Set<String> attached = new HashSet<>(paymentRepository.findAttachedSessionIds(
+                events.stream().map(StripeEvent::getSessionId).collect(Collectors.toSet())));
+        Map<PaymentStatus, Set<String>> sessionsByStatus = new EnumMap<>(PaymentStatus.class);
+        List<String> processed = new ArrayList<>();
+        for (StripeEvent event : events) {
+            if (attached.contains(event.getSessionId())) {
+                sessionsByStatus.computeIfAbsent(event.getTargetStatus(),
+                        status -> new LinkedHashSet<>()).add(event.getSessionId());
+            } else if (event.getAttempts() + 1 < maxAttempts) {
+                // Stripe can deliver before createPayment has stored the session id
+                postpone(event, now);
+                continue;
+            } else {
+                count("unmatched");
+            }
+            processed.add(event.getId());
+        }
+        sessionsByStatus.forEach(this::settle);
+        if (!processed.isEmpty()) {
+            stripeEventRepository.markProcessed(processed, now);
+        }
+        return events.size();
+    }
+
+    private void postpone(StripeEvent event, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setNextAttemptAt(now.plus(retryDelay.multipliedBy(1L << Math.min(attempts - 1, 10))));
+        count("postponed");
+    }
+
+    private void settle(PaymentStatus status, Set<String> sessionIds) {
+        List<PaymentOwnerView> settled = paymentRepository
+                .findPendingViewsBySessionIds(sessionIds);
+        paymentRepository.updatePendingStatus(sessionIds, status);
+        for (PaymentOwnerView payment : settled) {
+            pendingPaymentIndex.paymentSettled(payment.userId(), payment.paymentId());
+            if (status == PaymentStatus.PAID) {
+                notificationService.notifyPaymentSuccess(payment.paymentId(),
+                        payment.userId(), "Amount: " + payment.amount());
+            }
+        }
+    }
+
+    private PaymentStatus targetStatus(String type, JsonNode session) {
+        if (session == null || !session.hasNonNull("id")) {
+            return null;
+        }
+        return switch (type) {
+            case "checkout.session.completed" ->
+                    "unpaid".equals(session.path("payment_status").asText())
+                            ? null
+                            : PaymentStatus.PAID;
+            case "checkout.session.async_payment_succeeded" -> PaymentStatus.PAID;
+            case "checkout.session.async_payment_failed" -> PaymentStatus.FAILED;
+            case "checkout.session.expired" -> PaymentStatus.EXPIRED;
+            default -> null;
+        };
+    }
+
+    private JsonNode readSession(Event event) {
+        if (event.getData() == null || !event.getType().startsWith("checkout.session.")) {
+            return null;
+        }
+        try {
+            // raw JSON avoids failing on events rendered with a different API version
+            return objectMapper.readTree(event.getDataObjectDeserializer().getRawJson());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("stripe.webhook.events", "result", result).increment();
+    }
+}
@@ -2,76 +2,166 @@ package com.example.carsharingapp.service;
 
 import com.example.carsharingapp.config.TelegramConfig;
 import com.example.carsharingapp.exceptions.NotificationSendException;
+import com.example.carsharingapp.exceptions.TelegramRateLimitException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.net.URI;
+import java.time.Duration;
 import java.util.Map;
-import lombok.RequiredArgsConstructor;
-import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Async;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Service
-@RequiredArgsConstructor
-public class TelegramNotificationService implements NotificationService {
+public class TelegramNotificationService {
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(30);
 
     private final TelegramConfig telegramConfig;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final TelegramRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter throttled;
+    private final URI sendMessageUri;
+    private final URI sendDocumentUri;
 
-    private void sendMessage(String text) {
-        String token = telegramConfig.getBotToken();
-        String chatId = telegramConfig.getChatId();
-        URI uri = UriComponentsBuilder
-                .newInstance()
-                .scheme("https")
-                .host("api.telegram.org")
-                .path("/bot{token}/sendMessage")
-                .buildAndExpand(Map.of("token", token))
-                .toUri();
+    @Value("${telegram.rate-limit.max-wait:5s}")
+    private Duration maxWait;
 
+    public TelegramNotificationService(TelegramConfig telegramConfig,
+                                       TelegramRateLimiter rateLimiter,
+                                       ObjectMapper objectMapper,
+                                       @Qualifier("telegramRestTemplate")
+                                       RestTemplate restTemplate,
+                                       MeterRegistry meterRegistry) {
+        this.telegramConfig = telegramConfig;
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.sendMessageUri = methodUri("sendMessage");
+        this.sendDocumentUri = methodUri("sendDocument");
+        this.throttled = Counter.builder("telegram.messages.throttled")
+                .description("Telegram calls delayed or deferred by rate limiting")
+                .register(meterRegistry);
+    }
+
+    public void sendMessage(String text) {
+        String chatId = telegramConfig.getChatId();
         Map<String, Object> body = Map.of(
                 "chat_id", chatId,
                 "text", text,
                 "parse_mode", "Markdown"
         );
 
+        acquirePermit(chatId);
+        post("sendMessage", sendMessageUri, body, chatId);
+    }
+
+    public void sendDocument(String fileName, byte[] content, String caption) {
+        String chatId = telegramConfig.getChatId();
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("chat_id", chatId);
+        body.add("caption", caption);
+        body.add("document", new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        });
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        acquirePermit(chatId);
+        post("sendDocument", sendDocumentUri, new HttpEntity<>(body, headers), chatId);
+    }
+
+    private void post(String method, URI uri, Object request, String chatId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(uri, body, String.class);
+            restTemplate.postForEntity(uri, request, String.class);
+            outcome = "success";
+        } catch (HttpClientErrorException.TooManyRequests ex) {
+            outcome = "rate_limited";
+            throw rateLimited(chatId, ex);
         } catch (Exception ex) {
-            throw new NotificationSendException("Failed to send telegram notification",ex);
+            throw new NotificationSendException("Failed to call telegram " + method,ex);
+        } finally {
+            sample.stop(Timer.builder("telegram.requests")
+                    .description("Latency of Telegram Bot API calls")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
         }
     }
 
-    @Override
-    @Async("notificationExecutor")
-    public void notifyNewRental(Long rentalId, Long userId, String summary) {
-        String text =
-                String.format("📣 *New rental created*\nRental id: %d\nUser id: %d\n%s",
-                        rentalId, userId, summary);
-        sendMessage(text);
+    private void acquirePermit(String chatId) {
+        TelegramRateLimiter.Permit permit = rateLimiter.acquire(chatId, maxWait);
+        if (permit.delay().isZero()) {
+            return;
+        }
+        throttled.increment();
+        if (!permit.granted()) {
+            throw new TelegramRateLimitException(
+                    "Telegram rate limit reached for chat " + chatId, permit.delay());
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(permit.delay().toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NotificationSendException("Interrupted while waiting for rate limit", e);
+        }
     }
 
-    @Override
-    @Async("notificationExecutor")
-    public void notifyOverdueRental(Long rentalId, Long userId, String info) {
-        String text =
-                String.format("⚠️ *Overdue rental*\nRental id: %d\nUser id: %d\nDetailed info %s",
-                        rentalId, userId, info);
-        sendMessage(text);
+    private TelegramRateLimitException rateLimited(String chatId,
+                                                   HttpClientErrorException ex) {
+        Duration retryAfter = parseRetryAfter(ex);
+        rateLimiter.pause(chatId, retryAfter);
+        throttled.increment();
+        return new TelegramRateLimitException(
+                "Telegram answered 429, retry after " + retryAfter.toSeconds() + "s", retryAfter);
     }
 
-    @Override
-    @Async("notificationExecutor")
-    public void notifyPaymentSuccess(Long paymentId, Long userId, String summary) {
-        String text =
-                String.format("✅ *Payment succeeded*\nPayment id: %d\nUser id: %d\n%s",
-                        paymentId, userId, summary);
-        sendMessage(text);
+    private Duration parseRetryAfter(HttpClientErrorException ex) {
+        try {
+            JsonNode retryAfter = objectMapper.readTree(ex.getResponseBodyAsString())
+                    .path("parameters").path("retry_after");
+            if (retryAfter.canConvertToLong()) {
+                return Duration.ofSeconds(retryAfter.asLong());
+            }
+        } catch (Exception ignored) {
+            // fall back to the header below
+        }
+        String header = ex.getResponseHeaders() == null
+                ? null
+                : ex.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (header != null && !header.isEmpty() && header.chars().allMatch(Character::isDigit)) {
+            return Duration.ofSeconds(Long.parseLong(header));
+        }
+        return DEFAULT_RETRY_AFTER;
     }
 
-    @Override
-    @Async("notificationExecutor")
-    public void notifyGeneralMessage(String message) {
-        sendMessage("ℹ️ " + message);
+    private URI methodUri(String method) {
+        return UriComponentsBuilder
+                .fromUriString(telegramConfig.getApiUrl())
+                .path("/bot{token}/{method}")
+                .buildAndExpand(Map.of("token", telegramConfig.getBotToken(), "method", method))
+                .toUri();
     }
 }
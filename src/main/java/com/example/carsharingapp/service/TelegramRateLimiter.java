@@ -0,0 +1,73 @@
+package com.example.carsharingapp.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TelegramRateLimiter {
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Value("${telegram.rate-limit.per-chat-per-second:1}")
+    private double permitsPerSecond;
+
+    @Value("${telegram.rate-limit.burst:3}")
+    private int burst;
+
+    public Permit acquire(String chatId, Duration maxWait) {
+        return bucket(chatId).acquire(System.nanoTime(), maxWait.toNanos());
+    }
+
+    public void pause(String chatId, Duration retryAfter) {
+        bucket(chatId).pause(System.nanoTime(), retryAfter.toNanos());
+    }
+
+    private Bucket bucket(String chatId) {
+        return buckets.computeIfAbsent(chatId,
+                id -> new Bucket(burst, permitsPerSecond / 1_000_000_000d));
+    }
+
+    public record Permit(boolean granted, Duration delay) {
+    }
+
+    private static final class Bucket {
+        private final int capacity;
+        private final double permitsPerNano;
+        private double tokens;
+        private long refilledAt;
+        private long pausedUntil;
+
+        private Bucket(int capacity, double permitsPerNano) {
+            this.capacity = capacity;
+            this.permitsPerNano = permitsPerNano;
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+            this.pausedUntil = refilledAt;
+        }
+
+        private synchronized Permit acquire(long now, long maxWaitNanos) {
+            refill(now);
+            long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+            wait = Math.max(wait, pausedUntil - now);
+            if (wait > maxWaitNanos) {
+                return new Permit(false, Duration.ofNanos(wait));
+            }
+            // tokens may go negative: the permit is reserved now and honoured after the wait
+            tokens -= 1;
+            return new Permit(true, Duration.ofNanos(wait));
+        }
+
+        private synchronized void pause(long now, long nanos) {
+            refill(now);
+            pausedUntil = Math.max(pausedUntil, now + nanos);
+            tokens = Math.min(tokens, 0);
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import com.example.carsharingapp.mapper.UserMapper;
 import com.example.carsharingapp.model.Role;
 import com.example.carsharingapp.model.User;
 import com.example.carsharingapp.repository.user.UserRepository;
+import com.example.carsharingapp.security.PrincipalCache;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -22,6 +23,7 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserResponseDto register(UserRegistrationRequestDto requestDto) {
@@ -45,6 +47,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         user.setRole(role);
+        principalCache.evict(user.getEmail());
         return userMapper.toDto(userRepository.save(user));
     }
 
@@ -59,6 +62,7 @@ public class UserServiceImpl implements UserService {
     public UserResponseDto updateMyProfile(String email, UserUpdateRequestDto requestDto) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        principalCache.evict(email);
 
         if (requestDto.getEmail() != null) {
             user.setEmail(requestDto.getEmail());
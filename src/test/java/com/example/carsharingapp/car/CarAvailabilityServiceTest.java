@@ -0,0 +1,109 @@
+package com.example.carsharingapp.car;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.exceptions.InvalidDateRangeException;
+import com.example.carsharingapp.model.Car;
+import com.example.carsharingapp.model.Rental;
+import com.example.carsharingapp.repository.car.CarRepository;
+import com.example.carsharingapp.repository.rental.ActiveRentalSpan;
+import com.example.carsharingapp.repository.rental.RentalRepository;
+import com.example.carsharingapp.service.CarAvailabilityService;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class CarAvailabilityServiceTest {
+    private final LocalDate today = LocalDate.now();
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @InjectMocks
+    private CarAvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(availabilityService, "horizonDays", 30);
+        // car 1: one unit, rented for the next 3 days; car 2: two free units
+        when(carRepository.findAll()).thenReturn(List.of(car(1L, 0), car(2L, 2)));
+        when(rentalRepository.findAllActiveSpans()).thenReturn(List.of(
+                new ActiveRentalSpan(10L, 1L, today, today.plusDays(2))));
+        availabilityService.rebuild();
+    }
+
+    @Test
+    @DisplayName("Booked car is excluded only for overlapping ranges")
+    void findAvailableCarIds_shouldRespectBookedDays() {
+        assertEquals(List.of(2L),
+                availabilityService.findAvailableCarIds(today.plusDays(1), today.plusDays(5)));
+        assertEquals(List.of(1L, 2L),
+                availabilityService.findAvailableCarIds(today.plusDays(3), today.plusDays(5)));
+    }
+
+    @Test
+    @DisplayName("Overdue rental keeps the car occupied until it is returned")
+    void rebuild_withOverdueRental_shouldBlockOpenEnded() {
+        when(rentalRepository.findAllActiveSpans()).thenReturn(List.of(
+                new ActiveRentalSpan(10L, 1L, today.minusDays(5), today.minusDays(1))));
+        availabilityService.rebuild();
+
+        assertEquals(List.of(2L),
+                availabilityService.findAvailableCarIds(today.plusDays(20), today.plusDays(21)));
+
+        availabilityService.rentalClosed(1L, 10L);
+
+        assertEquals(List.of(1L, 2L),
+                availabilityService.findAvailableCarIds(today.plusDays(20), today.plusDays(21)));
+    }
+
+    @Test
+    @DisplayName("Incremental updates are idempotent per rental")
+    void rentalStarted_twice_shouldCountOnce() {
+        Rental rental = new Rental();
+        rental.setId(20L);
+        rental.setCar(car(2L, 1));
+        rental.setRentalDate(today);
+        rental.setReturnDate(today.plusDays(3));
+
+        availabilityService.rentalStarted(rental);
+        availabilityService.rentalStarted(rental);
+        assertEquals(List.of(2L),
+                availabilityService.findAvailableCarIds(today, today.plusDays(1)));
+
+        availabilityService.inventoryChanged(2L, 0);
+        assertEquals(List.of(),
+                availabilityService.findAvailableCarIds(today, today.plusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Ranges outside the horizon are rejected")
+    void findAvailableCarIds_outsideHorizon_shouldThrow() {
+        assertThrows(InvalidDateRangeException.class,
+                () -> availabilityService.findAvailableCarIds(today.minusDays(1), today));
+        assertThrows(InvalidDateRangeException.class,
+                () -> availabilityService.findAvailableCarIds(today, today.plusDays(30)));
+        assertThrows(InvalidDateRangeException.class,
+                () -> availabilityService.findAvailableCarIds(today.plusDays(2), today));
+    }
+
+    private Car car(Long id, int inventory) {
+        Car car = new Car();
+        car.setId(id);
+        car.setInventory(inventory);
+        return car;
+    }
+}
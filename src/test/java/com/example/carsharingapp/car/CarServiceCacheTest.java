@@ -0,0 +1,115 @@
+package com.example.carsharingapp.car;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.config.CacheConfig;
+import com.example.carsharingapp.dto.car.CarResponseDto;
+import com.example.carsharingapp.dto.car.UpdateCarRequestDto;
+import com.example.carsharingapp.mapper.CarMapper;
+import com.example.carsharingapp.model.Car;
+import com.example.carsharingapp.repository.car.CarRepository;
+import com.example.carsharingapp.service.CarAvailabilityService;
+import com.example.carsharingapp.service.CarService;
+import com.example.carsharingapp.service.CarServiceImpl;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@SpringBootTest(classes = {CacheConfig.class, CarServiceImpl.class},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "cache.cars.load-batch-size=1")
+class CarServiceCacheTest {
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockitoBean
+    private CarRepository carRepository;
+
+    @MockitoBean
+    private CarMapper carMapper;
+
+    @MockitoBean
+    private CarAvailabilityService carAvailabilityService;
+
+    private Car car;
+
+    private CarResponseDto dto;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        reset(carRepository, carMapper);
+
+        car = new Car();
+        car.setId(1L);
+        car.setModel("Tesla");
+
+        dto = new CarResponseDto();
+        dto.setId(1L);
+        dto.setModel("Tesla");
+
+        when(carRepository.findById(1L)).thenReturn(Optional.of(car));
+        when(carMapper.toDto(car)).thenReturn(dto);
+    }
+
+    @Test
+    @DisplayName("Repeated getById is served from the cache")
+    void getById_secondCall_shouldNotHitRepository() {
+        assertEquals(dto, carService.getById(1L));
+        assertEquals(dto, carService.getById(1L));
+
+        verify(carRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Update evicts the cached car and all cached pages")
+    void update_shouldEvictCarAndPages() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(carRepository.findCarPage(pageable)).thenReturn(new PageImpl<>(List.of(dto)));
+
+        carService.getById(1L);
+        carService.findAll(pageable);
+        carService.update(1L, new UpdateCarRequestDto());
+        carService.getById(1L);
+        carService.findAll(pageable);
+
+        verify(carRepository, times(3)).findById(1L);
+        verify(carRepository, times(2)).findCarPage(pageable);
+    }
+
+    @Test
+    @DisplayName("Available cars come from the cache, misses are loaded in batches and cached")
+    void findAvailable_shouldLoadOnlyMissingCarsInBatches() {
+        LocalDate today = LocalDate.now();
+        CarResponseDto second = new CarResponseDto(2L, "Civic", "Honda", null, 1, null);
+        CarResponseDto third = new CarResponseDto(3L, "Golf", "VW", null, 1, null);
+        when(carAvailabilityService.findAvailableCarIds(today, today))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(carRepository.findViewsByIdIn(List.of(2L))).thenReturn(List.of(second));
+        when(carRepository.findViewsByIdIn(List.of(3L))).thenReturn(List.of(third));
+
+        carService.getById(1L);
+        assertEquals(List.of(dto, second, third), carService.findAvailable(today, today));
+        assertEquals(List.of(dto, second, third), carService.findAvailable(today, today));
+
+        verify(carRepository, times(1)).findViewsByIdIn(List.of(2L));
+        verify(carRepository, times(1)).findViewsByIdIn(List.of(3L));
+    }
+}
@@ -12,6 +12,7 @@ import com.example.carsharingapp.exceptions.EntityNotFoundException;
 import com.example.carsharingapp.mapper.CarMapper;
 import com.example.carsharingapp.model.Car;
 import com.example.carsharingapp.repository.car.CarRepository;
+import com.example.carsharingapp.service.CarAvailabilityService;
 import com.example.carsharingapp.service.CarServiceImpl;
 import java.util.Collections;
 import java.util.Optional;
@@ -36,6 +37,9 @@ public class CarServiceTest {
     @Mock
     private CarMapper carMapper;
 
+    @Mock
+    private CarAvailabilityService carAvailabilityService;
+
     @InjectMocks
     private CarServiceImpl carService;
 
@@ -72,27 +76,21 @@ public class CarServiceTest {
     @Test
     @DisplayName("Find all cars")
     public void findAll_shouldReturnAllCars() {
-        Car car = new Car();
-        car.setId(1L);
-        car.setModel("Tesla");
-
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Car> carPage = new PageImpl<>(Collections.singletonList(car));
 
         CarResponseDto expected = new CarResponseDto();
         expected.setId(1L);
         expected.setModel("Tesla");
 
-        when(carRepository.findAll(pageable)).thenReturn(carPage);
-        when(carMapper.toDto(car)).thenReturn(expected);
+        when(carRepository.findCarPage(pageable))
+                .thenReturn(new PageImpl<>(Collections.singletonList(expected)));
 
         Page<CarResponseDto> result = carService.findAll(pageable);
         CarResponseDto actual = result.getContent().get(0);
 
         assertEquals(expected, actual);
 
-        verify(carRepository).findAll(pageable);
-        verify(carMapper).toDto(car);
+        verify(carRepository).findCarPage(pageable);
     }
 
     @Test
@@ -0,0 +1,72 @@
+package com.example.carsharingapp.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.dto.car.CarResponseDto;
+import com.example.carsharingapp.exceptions.EntityNotFoundException;
+import com.example.carsharingapp.mapper.CarMapper;
+import com.example.carsharingapp.model.Car;
+import com.example.carsharingapp.repository.car.CarRepository;
+import com.example.carsharingapp.service.CarAvailabilityService;
+import com.example.carsharingapp.service.CarService;
+import com.example.carsharingapp.service.CarServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@SpringBootTest(classes = {AopAutoConfiguration.class, ServiceMetricsAspect.class,
+        CarServiceImpl.class, SimpleMeterRegistry.class},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ServiceMetricsAspectTest {
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private CarRepository carRepository;
+
+    @MockitoBean
+    private CarMapper carMapper;
+
+    @MockitoBean
+    private CarAvailabilityService carAvailabilityService;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @Test
+    @DisplayName("Service calls are timed per method and exception")
+    void getById_shouldRecordServiceInvocations() {
+        Car car = new Car();
+        car.setId(1L);
+        when(carRepository.findById(1L)).thenReturn(Optional.of(car));
+        when(carMapper.toDto(car)).thenReturn(new CarResponseDto());
+        when(carRepository.findById(2L)).thenReturn(Optional.empty());
+
+        carService.getById(1L);
+        assertThrows(EntityNotFoundException.class, () -> carService.getById(2L));
+
+        assertEquals(1, count("None"));
+        assertEquals(1, count("EntityNotFoundException"));
+    }
+
+    private long count(String exception) {
+        return meterRegistry.get("service.invocations")
+                .tag("service", "CarServiceImpl")
+                .tag("method", "getById")
+                .tag("exception", exception)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.carsharingapp.notification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.exceptions.NotificationSendException;
+import com.example.carsharingapp.exceptions.TelegramRateLimitException;
+import com.example.carsharingapp.model.NotificationType;
+import com.example.carsharingapp.model.OutboxMessage;
+import com.example.carsharingapp.model.OutboxStatus;
+import com.example.carsharingapp.repository.notification.OutboxAttachmentRepository;
+import com.example.carsharingapp.repository.notification.OutboxMessageRepository;
+import com.example.carsharingapp.service.NotificationDispatcher;
+import com.example.carsharingapp.service.NotificationScheduler;
+import com.example.carsharingapp.service.TelegramNotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+    @Mock
+    private OutboxAttachmentRepository outboxAttachmentRepository;
+    @Mock
+    private TelegramNotificationService telegramNotificationService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private NotificationScheduler scheduler;
+
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new NotificationScheduler(Runnable::run, meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "capacity", 10);
+        ReflectionTestUtils.setField(scheduler, "maxWorkers", 1);
+        ReflectionTestUtils.setField(scheduler, "generalOverflow",
+                NotificationScheduler.OverflowPolicy.DROP);
+        ReflectionTestUtils.setField(scheduler, "paymentOverflow",
+                NotificationScheduler.OverflowPolicy.DEFER);
+        dispatcher = new NotificationDispatcher(outboxMessageRepository,
+                outboxAttachmentRepository, telegramNotificationService, scheduler,
+                transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoff", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(dispatcher, "maxBackoff", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(dispatcher, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(dispatcher, "deferDelay", Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Delivered message is removed from the outbox")
+    void dispatch_success_shouldDeleteMessage() {
+        OutboxMessage message = message(1L, 0);
+        when(outboxMessageRepository.findDueForUpdate(any(), eq(Limit.of(10))))
+                .thenReturn(List.of(message));
+
+        dispatcher.dispatch();
+
+        verify(telegramNotificationService).sendMessage("hello");
+        verify(outboxMessageRepository).deleteSent(1L);
+        verify(outboxMessageRepository, never()).countByStatus(any());
+        assertEquals(1.0, meterRegistry.get("notification.outbox.sent").counter().count());
+    }
+
+    @Test
+    @DisplayName("Backlog gauges are refreshed on their own timer")
+    void refreshGauges_shouldReportPendingCountAndLag() {
+        when(outboxMessageRepository.countByStatus(OutboxStatus.PENDING)).thenReturn(4L);
+        when(outboxMessageRepository.findOldestPendingCreatedAt())
+                .thenReturn(Optional.of(LocalDateTime.now().minusMinutes(1)));
+
+        dispatcher.refreshGauges();
+
+        assertEquals(4.0, meterRegistry.get("notification.outbox.pending").gauge().value());
+        assertFalse(meterRegistry.get("notification.outbox.lag.seconds").gauge().value() < 60);
+    }
+
+    @Test
+    @DisplayName("Report attachment is loaded from its own table only when sending")
+    void dispatch_attachment_shouldSendStoredContent() {
+        OutboxMessage message = message(1L, 0);
+        byte[] csv = "rental_id\n3\n".getBytes(StandardCharsets.UTF_8);
+        message.setAttachmentName("overdue-rentals.csv");
+        when(outboxMessageRepository.findDueForUpdate(any(), eq(Limit.of(10))))
+                .thenReturn(List.of(message));
+        when(outboxAttachmentRepository.findContentByOutboxId(1L)).thenReturn(Optional.of(csv));
+
+        dispatcher.dispatch();
+
+        verify(telegramNotificationService).sendDocument("overdue-rentals.csv", csv, "hello");
+        verify(outboxMessageRepository).deleteSent(1L);
+    }
+
+    @Test
+    @DisplayName("Failed delivery is retried later with exponential backoff")
+    void dispatch_failure_shouldRescheduleWithBackoff() {
+        OutboxMessage message = message(1L, 1);
+        when(outboxMessageRepository.findDueForUpdate(any(), eq(Limit.of(10))))
+                .thenReturn(List.of(message));
+        doThrow(new NotificationSendException("boom"))
+                .when(telegramNotificationService).sendMessage("hello");
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxMessageRepository).reschedule(eq(1L), eq(OutboxStatus.PENDING), eq(2),
+                nextAttempt.capture(), eq("boom"));
+        assertFalse(nextAttempt.getValue().isBefore(before.plusSeconds(10)));
+        verify(outboxMessageRepository, never()).deleteSent(any());
+    }
+
+    @Test
+    @DisplayName("Message is parked as failed after the last attempt")
+    void dispatch_lastAttempt_shouldMarkFailed() {
+        OutboxMessage message = message(1L, 2);
+        when(outboxMessageRepository.findDueForUpdate(any(), eq(Limit.of(10))))
+                .thenReturn(List.of(message));
+        doThrow(new NotificationSendException("boom"))
+                .when(telegramNotificationService).sendMessage("hello");
+
+        dispatcher.dispatch();
+
+        verify(outboxMessageRepository).reschedule(eq(1L), eq(OutboxStatus.FAILED), eq(3),
+                any(), anyString());
+        verify(outboxMessageRepository, never())
+                .reschedule(eq(1L), eq(OutboxStatus.PENDING), anyInt(), any(), anyString());
+        assertEquals(1.0, meterRegistry.get("notification.outbox.dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Rate-limited message is re-enqueued after retry_after without using an attempt")
+    void dispatch_rateLimited_shouldDeferWithoutAttempt() {
+        OutboxMessage message = message(1L, 2);
+        when(outboxMessageRepository.findDueForUpdate(any(), eq(Limit.of(10))))
+                .thenReturn(List.of(message));
+        doThrow(new TelegramRateLimitException("slow down", Duration.ofSeconds(40)))
+                .when(telegramNotificationService).sendMessage("hello");
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxMessageRepository).reschedule(eq(1L), eq(OutboxStatus.PENDING), eq(2),
+                nextAttempt.capture(), eq("slow down"));
+        assertFalse(nextAttempt.getValue().isBefore(before.plusSeconds(40)));
+        assertEquals(1.0, meterRegistry.get("notification.outbox.retried")
+                .tag("reason", "rate_limit").counter().count());
+    }
+
+    @Test
+    @DisplayName("Full payment lane defers the message instead of losing it")
+    void dispatch_paymentLaneFull_shouldDefer() {
+        ReflectionTestUtils.setField(scheduler, "capacity", 0);
+        OutboxMessage message = message(1L, 0);
+        message.setType(NotificationType.PAYMENT);
+        when(outboxMessageRepository.findDueForUpdate(any(), eq(Limit.of(10))))
+                .thenReturn(List.of(message));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxMessageRepository).reschedule(eq(1L), eq(OutboxStatus.PENDING), eq(0),
+                nextAttempt.capture(), any());
+        assertFalse(nextAttempt.getValue().isBefore(before.plusSeconds(5)));
+        verify(telegramNotificationService, never()).sendMessage(anyString());
+        assertEquals(1.0, meterRegistry.get("notification.lane.rejected")
+                .tags("lane", "payment", "policy", "defer").counter().count());
+    }
+
+    @Test
+    @DisplayName("Full general lane drops the message")
+    void dispatch_generalLaneFull_shouldDrop() {
+        ReflectionTestUtils.setField(scheduler, "capacity", 0);
+        when(outboxMessageRepository.findDueForUpdate(any(), eq(Limit.of(10))))
+                .thenReturn(List.of(message(1L, 0)));
+
+        dispatcher.dispatch();
+
+        verify(outboxMessageRepository).reschedule(eq(1L), eq(OutboxStatus.FAILED), eq(0),
+                any(), anyString());
+        verify(telegramNotificationService, never()).sendMessage(anyString());
+        assertEquals(1.0, meterRegistry.get("notification.outbox.dropped").counter().count());
+    }
+
+    private OutboxMessage message(Long id, int attempts) {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(id);
+        message.setType(NotificationType.GENERAL);
+        message.setPayload("hello");
+        message.setAttempts(attempts);
+        message.setCreatedAt(LocalDateTime.now().minusSeconds(3));
+        message.setNextAttemptAt(LocalDateTime.now());
+        return message;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.carsharingapp.notification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.carsharingapp.model.NotificationType;
+import com.example.carsharingapp.service.NotificationScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class NotificationSchedulerTest {
+    private final List<Runnable> workers = new ArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private NotificationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new NotificationScheduler(workers::add, meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "capacity", 2);
+        ReflectionTestUtils.setField(scheduler, "maxWorkers", 1);
+        ReflectionTestUtils.setField(scheduler, "generalOverflow",
+                NotificationScheduler.OverflowPolicy.DROP);
+    }
+
+    @Test
+    @DisplayName("Queued notifications are delivered in lane priority order")
+    void submit_shouldDrainHigherPriorityLanesFirst() {
+        List<String> delivered = new ArrayList<>();
+        scheduler.submit(NotificationType.GENERAL, () -> delivered.add("general"));
+        scheduler.submit(NotificationType.OVERDUE, () -> delivered.add("overdue"));
+        scheduler.submit(NotificationType.PAYMENT, () -> delivered.add("payment"));
+        scheduler.submit(NotificationType.RENTAL, () -> delivered.add("rental"));
+
+        assertEquals(1, workers.size());
+        workers.remove(0).run();
+
+        assertEquals(List.of("payment", "rental", "overdue", "general"), delivered);
+        assertEquals(0.0, meterRegistry.get("notification.lane.depth")
+                .tag("lane", "payment").gauge().value());
+        assertEquals(4, meterRegistry.get("notification.lane.wait").timers().size());
+    }
+
+    @Test
+    @DisplayName("A full lane rejects new work without affecting other lanes")
+    void submit_fullLane_shouldRejectAndCount() {
+        assertTrue(scheduler.submit(NotificationType.GENERAL, () -> { }));
+        assertTrue(scheduler.submit(NotificationType.GENERAL, () -> { }));
+        assertFalse(scheduler.submit(NotificationType.GENERAL, () -> { }));
+        assertTrue(scheduler.submit(NotificationType.PAYMENT, () -> { }));
+
+        assertEquals(NotificationScheduler.OverflowPolicy.DROP,
+                scheduler.overflowPolicy(NotificationType.GENERAL));
+        assertEquals(1.0, meterRegistry.get("notification.lane.rejected")
+                .tags("lane", "general", "policy", "drop").counter().count());
+        assertEquals(2.0, meterRegistry.get("notification.lane.depth")
+                .tag("lane", "general").gauge().value());
+    }
+}
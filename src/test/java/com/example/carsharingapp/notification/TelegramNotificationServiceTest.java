@@ -0,0 +1,141 @@
+package com.example.carsharingapp.notification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.carsharingapp.config.TelegramConfig;
+import com.example.carsharingapp.exceptions.NotificationSendException;
+import com.example.carsharingapp.exceptions.TelegramRateLimitException;
+import com.example.carsharingapp.service.TelegramNotificationService;
+import com.example.carsharingapp.service.TelegramRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TelegramNotificationServiceTest {
+    private static final String OK = "{\"ok\":true,\"result\":{}}";
+    private static final String TOO_MANY_REQUESTS = """
+            {"ok":false,"error_code":429,"description":"Too Many Requests: retry after 7",
+             "parameters":{"retry_after":7}}
+            """;
+
+    private final Deque<Integer> statuses = new ArrayDeque<>();
+    private volatile long responseDelayMillis;
+    private final List<String> paths = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private TelegramRateLimiter rateLimiter;
+    private SimpleMeterRegistry meterRegistry;
+    private TelegramNotificationService telegramService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            paths.add(exchange.getRequestURI().getPath());
+            sleep(responseDelayMillis);
+            int status = statuses.isEmpty() ? 200 : statuses.poll();
+            byte[] body = (status == 429 ? TOO_MANY_REQUESTS : OK)
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        TelegramConfig telegramConfig = new TelegramConfig();
+        ReflectionTestUtils.setField(telegramConfig, "botToken", "token");
+        ReflectionTestUtils.setField(telegramConfig, "chatId", "42");
+        ReflectionTestUtils.setField(telegramConfig, "apiUrl",
+                "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(telegramConfig, "connectTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(telegramConfig, "readTimeout", Duration.ofMillis(500));
+
+        rateLimiter = new TelegramRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "permitsPerSecond", 1.0);
+        ReflectionTestUtils.setField(rateLimiter, "burst", 2);
+
+        meterRegistry = new SimpleMeterRegistry();
+        telegramService = new TelegramNotificationService(telegramConfig, rateLimiter,
+                new ObjectMapper(), telegramConfig.telegramRestTemplate(), meterRegistry);
+        ReflectionTestUtils.setField(telegramService, "maxWait", Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Message is posted to the configured API url")
+    void sendMessage_shouldPostToBotEndpoint() {
+        telegramService.sendMessage("hello");
+
+        assertEquals(List.of("/bottoken/sendMessage"), paths);
+        assertEquals(1, meterRegistry.get("telegram.requests")
+                .tag("method", "sendMessage").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Slow response fails after the read timeout instead of pinning the thread")
+    void sendMessage_slowResponse_shouldTimeOut() {
+        responseDelayMillis = 2000;
+
+        assertThrows(NotificationSendException.class, () -> telegramService.sendMessage("hello"));
+
+        assertEquals(1, meterRegistry.get("telegram.requests")
+                .tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    @DisplayName("429 is surfaced with retry_after and pauses the chat")
+    void sendMessage_tooManyRequests_shouldExposeRetryAfter() {
+        statuses.add(429);
+
+        TelegramRateLimitException ex = assertThrows(TelegramRateLimitException.class,
+                () -> telegramService.sendMessage("hello"));
+
+        assertEquals(Duration.ofSeconds(7), ex.getRetryAfter());
+        TelegramRateLimitException paused = assertThrows(TelegramRateLimitException.class,
+                () -> telegramService.sendMessage("again"));
+        assertTrue(paused.getRetryAfter().compareTo(Duration.ofSeconds(6)) > 0);
+        assertEquals(1, paths.size());
+    }
+
+    @Test
+    @DisplayName("Local token bucket defers messages beyond the per-chat burst")
+    void sendMessage_overBurst_shouldBeThrottledLocally() {
+        telegramService.sendMessage("one");
+        telegramService.sendMessage("two");
+
+        assertThrows(TelegramRateLimitException.class,
+                () -> telegramService.sendMessage("three"));
+
+        assertEquals(2, paths.size());
+        assertEquals(1.0, meterRegistry.get("telegram.messages.throttled").counter().count());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,40 +4,57 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.example.carsharingapp.dto.payment.CancelPaymentResponseDto;
 import com.example.carsharingapp.dto.payment.PaymentResponseDto;
+import com.example.carsharingapp.exceptions.IdempotencyKeyConflictException;
+import com.example.carsharingapp.exceptions.PaymentProcessingException;
 import com.example.carsharingapp.mapper.PaymentMapper;
 import com.example.carsharingapp.model.Car;
+import com.example.carsharingapp.model.CarType;
 import com.example.carsharingapp.model.Payment;
 import com.example.carsharingapp.model.PaymentStatus;
 import com.example.carsharingapp.model.Rental;
 import com.example.carsharingapp.model.User;
 import com.example.carsharingapp.repository.payment.PaymentRepository;
 import com.example.carsharingapp.repository.rental.RentalRepository;
-import com.example.carsharingapp.service.NotificationService;
 import com.example.carsharingapp.service.PaymentServiceImpl;
+import com.example.carsharingapp.service.PendingPaymentIndex;
+import com.example.carsharingapp.service.PricingEngine;
 import com.example.carsharingapp.service.StripeService;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.InvalidRequestException;
 import com.stripe.model.checkout.Session;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @ExtendWith(MockitoExtension.class)
 public class PaymentServiceTest {
@@ -55,7 +72,14 @@ public class PaymentServiceTest {
     private StripeService stripeService;
 
     @Mock
-    private NotificationService notificationService;
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PendingPaymentIndex pendingPaymentIndex;
+
+    @Spy
+    private PricingEngine pricingEngine = new PricingEngine(new BigDecimal("0.2"),
+            new BigDecimal("0.2"), new BigDecimal("0.2"), new BigDecimal("0.2"));
 
     @InjectMocks
     private PaymentServiceImpl paymentService;
@@ -71,6 +95,7 @@ public class PaymentServiceTest {
 
         Car car = new Car();
         car.setDailyFee(BigDecimal.valueOf(100));
+        car.setType(CarType.SEDAN);
         rental.setCar(car);
 
         User user = new User();
@@ -79,9 +104,8 @@ public class PaymentServiceTest {
     }
 
     @Test
-    @DisplayName("Create payment should return correct DTO")
+    @DisplayName("Create payment reserves an intent, then attaches the Stripe session")
     void createPayment_shouldReturnPaymentResponseDto() throws Exception {
-        Payment payment = new Payment();
         Session session = new Session();
         session.setId("sess_123");
         session.setUrl("http://payment.url");
@@ -89,53 +113,157 @@ public class PaymentServiceTest {
         PaymentResponseDto expectedDto = new PaymentResponseDto();
         expectedDto.setId(1L);
 
-        when(rentalRepository.findById(1L))
+        when(rentalRepository.findWithCarForUpdateById(1L))
                 .thenReturn(Optional.of(rental));
-        when(stripeService.createPaymentSession(any(BigDecimal.class),
-                anyString())).thenReturn(session);
+        when(paymentRepository.findFirstByRental_IdAndStatusIn(eq(1L), any()))
+                .thenReturn(Optional.empty());
         when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
             Payment p = invocation.getArgument(0);
             p.setId(1L);
             return p;
         });
+        when(stripeService.createPaymentSession(anyLong(), anyString(), anyString()))
+                .thenReturn(session);
         when(paymentMapper.toDto(any(Payment.class))).thenReturn(expectedDto);
+        when(paymentRepository.attachSession(1L, "sess_123", "http://payment.url"))
+                .thenReturn(1);
 
-        PaymentResponseDto result = paymentService.createPayment(1L);
+        PaymentResponseDto result = paymentService.createPayment(1L, null);
 
         assertNotNull(result);
         assertEquals(expectedDto, result);
 
-        verify(rentalRepository).findById(1L);
-        verify(stripeService).createPaymentSession(any(BigDecimal.class), anyString());
-        verify(paymentRepository).save(any(Payment.class));
-        verify(paymentMapper).toDto(any(Payment.class));
+        ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+        verify(paymentRepository).save(saved.capture());
+        assertEquals(PaymentStatus.PENDING, saved.getValue().getStatus());
+        assertNotNull(saved.getValue().getIdempotencyKey());
+        assertEquals(new BigDecimal("500.00"), saved.getValue().getAmount());
+        verify(stripeService).createPaymentSession(eq(50_000L), anyString(),
+                eq(saved.getValue().getIdempotencyKey()));
+        verify(paymentRepository).attachSession(1L, "sess_123", "http://payment.url");
+        verify(pendingPaymentIndex).paymentPending(10L, 1L);
     }
 
     @Test
-    @DisplayName("Confirm payment success should update status and notify user")
-    void confirmSuccess_shouldUpdateStatusAndNotify() {
-        Payment payment = new Payment();
-        payment.setId(1L);
-        payment.setRental(rental);
-        payment.setAmount(BigDecimal.valueOf(500));
-        payment.setStatus(PaymentStatus.PENDING);
+    @DisplayName("Repeating a request with the same idempotency key returns the same payment")
+    void createPayment_sameIdempotencyKey_shouldNotCallStripeAgain() throws Exception {
+        Payment existing = new Payment();
+        existing.setId(5L);
+        existing.setRental(rental);
+        existing.setStatus(PaymentStatus.PENDING);
+        existing.setIdempotencyKey("key-1");
+        PaymentResponseDto dto = new PaymentResponseDto();
+        dto.setId(5L);
+
+        when(rentalRepository.findWithCarForUpdateById(1L)).thenReturn(Optional.of(rental));
+        when(paymentRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(existing));
+        when(paymentMapper.toDto(existing)).thenReturn(dto);
+
+        assertEquals(dto, paymentService.createPayment(1L, "key-1"));
+        verify(paymentRepository, never()).save(any());
+        verify(stripeService, never()).createPaymentSession(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("A new idempotency key reuses the intent the rental already has open")
+    void createPayment_newKeyWithOpenIntent_shouldReturnOpenIntent() throws Exception {
+        Payment open = new Payment();
+        open.setId(5L);
+        open.setRental(rental);
+        open.setStatus(PaymentStatus.PENDING);
+        PaymentResponseDto dto = new PaymentResponseDto();
+        dto.setId(5L);
+
+        when(rentalRepository.findWithCarForUpdateById(1L)).thenReturn(Optional.of(rental));
+        when(paymentRepository.findByIdempotencyKey("key-2")).thenReturn(Optional.empty());
+        when(paymentRepository.findFirstByRental_IdAndStatusIn(eq(1L), any()))
+                .thenReturn(Optional.of(open));
+        when(paymentMapper.toDto(open)).thenReturn(dto);
+
+        assertEquals(dto, paymentService.createPayment(1L, "key-2"));
+        verify(paymentRepository, never()).save(any());
+        verify(stripeService, never()).createPaymentSession(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Reusing an idempotency key for another rental is a conflict")
+    void createPayment_keyOfAnotherRental_shouldThrowConflict() {
+        Rental other = new Rental();
+        other.setId(2L);
+        Payment existing = new Payment();
+        existing.setRental(other);
+
+        when(rentalRepository.findWithCarForUpdateById(1L)).thenReturn(Optional.of(rental));
+        when(paymentRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(existing));
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> paymentService.createPayment(1L, "key-1"));
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Rejected Stripe request fails the intent, an outage leaves it for reconciliation")
+    void createPayment_stripeError_shouldFailOnlyNonRetryableIntents() throws Exception {
+        when(rentalRepository.findWithCarForUpdateById(1L)).thenReturn(Optional.of(rental));
+        when(paymentRepository.findFirstByRental_IdAndStatusIn(eq(1L), any()))
+                .thenReturn(Optional.empty());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment p = invocation.getArgument(0);
+            p.setId(1L);
+            return p;
+        });
+        when(stripeService.createPaymentSession(anyLong(), anyString(), anyString()))
+                .thenThrow(new ApiConnectionException("timeout"))
+                .thenThrow(new InvalidRequestException("bad amount", "amount", null, null, 400,
+                        null));
+
+        assertThrows(PaymentProcessingException.class,
+                () -> paymentService.createPayment(1L, null));
+        verify(paymentRepository, never()).markFailed(any());
+
+        assertThrows(PaymentProcessingException.class,
+                () -> paymentService.createPayment(1L, null));
+        verify(paymentRepository).markFailed(1L);
+    }
+
+    @Test
+    @DisplayName("Reconciliation resumes recent orphaned intents and abandons old ones")
+    void reconcileOrphanedIntents_shouldResumeOrAbandon() throws Exception {
+        ReflectionTestUtils.setField(paymentService, "intentStaleAfter", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(paymentService, "intentAbandonAfter", Duration.ofHours(23));
+        ReflectionTestUtils.setField(paymentService, "reconcileBatchSize", 100);
+        Payment recent = intent(1L, LocalDateTime.now().minusMinutes(10));
+        Payment stale = intent(2L, LocalDateTime.now().minusDays(2));
+        Session session = new Session();
+        session.setId("sess_1");
+        session.setUrl("http://payment.url");
+
+        when(paymentRepository.findAllByStatusAndCreatedAtBeforeOrderByIdAsc(
+                eq(PaymentStatus.INITIATED), any(), eq(Limit.of(100))))
+                .thenReturn(List.of(recent, stale));
+        when(stripeService.createPaymentSession(30_000L, "Car Rental Payment",
+                "key-1")).thenReturn(session);
+
+        paymentService.reconcileOrphanedIntents();
+
+        verify(paymentRepository).attachSession(1L, "sess_1", "http://payment.url");
+        verify(paymentRepository).markFailed(2L);
+        verify(stripeService, never()).createPaymentSession(anyLong(), anyString(), eq("key-2"));
+    }
 
+    @Test
+    @DisplayName("Confirm payment success only reads the current payment state")
+    void confirmSuccess_shouldReturnViewWithoutWriting() {
         PaymentResponseDto dto = new PaymentResponseDto();
         dto.setId(1L);
+        dto.setStatus(PaymentStatus.PAID);
 
-        when(paymentRepository.findBySessionId("sess_123"))
-                .thenReturn(Optional.of(payment));
-        when(paymentMapper.toDto(payment)).thenReturn(dto);
-        when(paymentRepository.save(payment)).thenReturn(payment);
+        when(paymentRepository.findViewBySessionId("sess_123")).thenReturn(Optional.of(dto));
 
         PaymentResponseDto result = paymentService.confirmSuccess("sess_123");
 
-        assertNotNull(result);
-        assertEquals(dto,result);
-        verify(notificationService).notifyPaymentSuccess(payment.getId(),
-                rental.getUser().getId(), "Amount: " + payment.getAmount());
-        verify(paymentRepository).save(payment);
-        verify(paymentMapper).toDto(payment);
+        assertEquals(dto, result);
+        verify(paymentRepository, never()).save(any());
     }
 
     @Test
@@ -169,19 +297,26 @@ public class PaymentServiceTest {
     @Test
     @DisplayName("Get payments returns paginated DTOs")
     void getPayments_returnsPaginatedDtos() {
-        Payment payment = new Payment();
-        payment.setId(1L);
-
-        Page<Payment> page = new PageImpl<>(List.of(payment));
-        when(paymentRepository.findAllByRental_User_Id(10L, Pageable.unpaged())).thenReturn(page);
-
         PaymentResponseDto dto = new PaymentResponseDto();
         dto.setId(1L);
-        when(paymentMapper.toDto(payment)).thenReturn(dto);
+
+        Page<PaymentResponseDto> page = new PageImpl<>(List.of(dto));
+        when(paymentRepository.findUserPaymentPage(10L, Pageable.unpaged())).thenReturn(page);
 
         Page<PaymentResponseDto> result = paymentService.getPayments(10L, Pageable.unpaged());
 
         assertEquals(1, result.getTotalElements());
         assertEquals(dto.getId(), result.getContent().get(0).getId());
     }
+
+    private Payment intent(Long id, LocalDateTime createdAt) {
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setRental(rental);
+        payment.setAmount(BigDecimal.valueOf(300));
+        payment.setStatus(PaymentStatus.INITIATED);
+        payment.setIdempotencyKey("key-" + id);
+        payment.setCreatedAt(createdAt);
+        return payment;
+    }
 }
@@ -119,7 +119,7 @@ class PaymentsControllerTest {
         PaymentResponseDto response = new PaymentResponseDto();
         response.setRentalId(1L);
 
-        Mockito.when(paymentService.createPayment(1L))
+        Mockito.when(paymentService.createPayment(1L, null))
                 .thenReturn(response);
 
         mockMvc.perform(post("/payments")
@@ -0,0 +1,78 @@
+package com.example.carsharingapp.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.model.PaymentStatus;
+import com.example.carsharingapp.repository.payment.PaymentOwnerView;
+import com.example.carsharingapp.repository.payment.PaymentRepository;
+import com.example.carsharingapp.service.PendingPaymentIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PendingPaymentIndexTest {
+    private PaymentRepository paymentRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private PendingPaymentIndex index;
+
+    @BeforeEach
+    void setUp() {
+        paymentRepository = mock(PaymentRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        index = new PendingPaymentIndex(paymentRepository, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("User stays blocked until the last pending payment is settled")
+    void hasPending_shouldTrackPaymentsPerUser() {
+        when(paymentRepository.findAllPendingOwners()).thenReturn(List.of(owner(1L, 10L)));
+        index.rebuild();
+
+        index.paymentPending(10L, 2L);
+        index.paymentSettled(10L, 1L);
+        assertTrue(index.hasPending(10L));
+
+        index.paymentSettled(10L, 2L);
+        assertFalse(index.hasPending(10L));
+        assertFalse(index.hasPending(20L));
+    }
+
+    @Test
+    @DisplayName("Consistency check replaces the index with the database state and reports drift")
+    void rebuild_afterDrift_shouldRepairAndReport() {
+        when(paymentRepository.findAllPendingOwners())
+                .thenReturn(List.of(owner(1L, 10L)))
+                .thenReturn(List.of(owner(3L, 30L)));
+        index.rebuild();
+        index.paymentPending(20L, 2L);
+
+        index.rebuild();
+
+        assertFalse(index.hasPending(10L));
+        assertFalse(index.hasPending(20L));
+        assertTrue(index.hasPending(30L));
+        assertEquals(3, meterRegistry.get("payment.pending-index.drift").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Falls back to the database before the index is loaded")
+    void hasPending_beforeRebuild_shouldQueryDatabase() {
+        when(paymentRepository.existsByRental_User_IdAndStatus(10L, PaymentStatus.PENDING))
+                .thenReturn(true);
+
+        assertTrue(index.hasPending(10L));
+        verify(paymentRepository).existsByRental_User_IdAndStatus(10L, PaymentStatus.PENDING);
+    }
+
+    private PaymentOwnerView owner(Long paymentId, Long userId) {
+        return new PaymentOwnerView(paymentId, userId, BigDecimal.TEN);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.carsharingapp.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.payment.config.FakeStripeServer;
+import com.example.carsharingapp.repository.payment.PaymentRepository;
+import com.example.carsharingapp.repository.payment.PendingPaymentView;
+import com.example.carsharingapp.service.NotificationService;
+import com.example.carsharingapp.service.PendingPaymentIndex;
+import com.example.carsharingapp.service.PendingPaymentReconciler;
+import com.example.carsharingapp.service.StripeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class PendingPaymentReconcilerTest {
+    private FakeStripeServer stripe;
+    private ExecutorService executor;
+    private PaymentRepository paymentRepository;
+    private NotificationService notificationService;
+    private PendingPaymentIndex pendingPaymentIndex;
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private PendingPaymentReconciler reconciler;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> updates;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stripe = new FakeStripeServer();
+        meterRegistry = new SimpleMeterRegistry();
+
+        paymentRepository = mock(PaymentRepository.class);
+        notificationService = mock(NotificationService.class);
+        pendingPaymentIndex = mock(PendingPaymentIndex.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        executor = Executors.newFixedThreadPool(4);
+        StripeService stripeService = stripe.stripeService(
+                FakeStripeServer.circuitBreaker(meterRegistry, 5), meterRegistry);
+        reconciler = new PendingPaymentReconciler(paymentRepository, stripeService,
+                notificationService, pendingPaymentIndex, jdbcTemplate, transactionManager,
+                executor, meterRegistry);
+        ReflectionTestUtils.setField(reconciler, "chunkSize", 10);
+        ReflectionTestUtils.setField(reconciler, "minAge", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(reconciler, "expireAfter", Duration.ofHours(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stripe.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Stripe session states are written back in one JDBC batch")
+    void reconcilePendingPayments_shouldBatchUpdateResolvedPayments() {
+        LocalDateTime now = LocalDateTime.now();
+        stripe.sessionStatus("cs_paid", "complete");
+        stripe.sessionStatus("cs_expired", "expired");
+        when(paymentRepository.findPendingChunk(anyLong(), any(LocalDateTime.class),
+                any(Limit.class)))
+                .thenReturn(List.of(
+                        view(1L, "cs_paid", now.minusMinutes(30)),
+                        view(2L, "cs_expired", now.minusHours(1)),
+                        view(3L, "cs_abandoned", now.minusHours(3)),
+                        view(4L, "cs_open", now.minusMinutes(20))));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenReturn(new int[] {1, 1, 1});
+
+        reconciler.reconcilePendingPayments();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertEquals(List.of("PAID:1", "EXPIRED:2", "EXPIRED:3"), updates.getValue().stream()
+                .map(row -> row[0] + ":" + row[1])
+                .toList());
+        assertEquals(Set.of("cs_abandoned"), stripe.expiredSessions());
+        verify(notificationService).notifyPaymentSuccess(1L, 10L, "Amount: 25");
+        verify(pendingPaymentIndex).paymentSettled(10L, 3L);
+        assertEquals(4, meterRegistry.counter("payment.reconcile.checked").count());
+        InOrder transaction = inOrder(transactionManager, jdbcTemplate, notificationService);
+        transaction.verify(transactionManager).getTransaction(any());
+        transaction.verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        transaction.verify(notificationService).notifyPaymentSuccess(1L, 10L, "Amount: 25");
+        transaction.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Payments already settled by a webhook are not notified again")
+    void reconcilePendingPayments_settledByWebhook_shouldNotNotify() {
+        stripe.sessionStatus("cs_paid", "complete");
+        when(paymentRepository.findPendingChunk(anyLong(), any(LocalDateTime.class),
+                any(Limit.class)))
+                .thenReturn(List.of(view(1L, "cs_paid", LocalDateTime.now().minusHours(1))));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenReturn(new int[] {0});
+
+        reconciler.reconcilePendingPayments();
+
+        verify(notificationService, never()).notifyPaymentSuccess(eq(1L), anyLong(),
+                anyString());
+    }
+
+    private PendingPaymentView view(Long id, String sessionId, LocalDateTime createdAt) {
+        return new PendingPaymentView(id, 10L, BigDecimal.valueOf(25), sessionId, createdAt);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.carsharingapp.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.carsharingapp.model.CarType;
+import com.example.carsharingapp.service.PricingEngine;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PricingEngineTest {
+    private final PricingEngine pricingEngine = new PricingEngine(new BigDecimal("0.2"),
+            new BigDecimal("0.35"), new BigDecimal("0.2"), new BigDecimal("0.2"));
+
+    @Test
+    @DisplayName("Fines use the car type multiplier and round half-up to cents")
+    void totalCents_lateRental_shouldAddRoundedFine() {
+        LocalDate rentalDate = LocalDate.of(2026, 3, 1);
+        LocalDate returnDate = LocalDate.of(2026, 3, 4);
+        LocalDate today = LocalDate.of(2026, 3, 6);
+
+        // 3 days * 33.33 + 2 late days * 33.33 * 0.2 = 99.99 + 13.332
+        assertEquals(11_332, pricingEngine.totalCents(3_333, CarType.SEDAN,
+                rentalDate, returnDate, today));
+        // 2 late days * 33.33 * 0.35 = 23.331
+        assertEquals(9_999 + 2_333, pricingEngine.totalCents(3_333, CarType.SUV,
+                rentalDate, returnDate, today));
+        assertEquals(1, pricingEngine.fineCents(3, CarType.SEDAN, 1));
+    }
+
+    @Test
+    @DisplayName("Same-day rentals cost one day and amounts convert exactly")
+    void totalCents_sameDay_shouldChargeOneDay() {
+        LocalDate day = LocalDate.of(2026, 3, 1);
+
+        assertEquals(4_999, pricingEngine.totalCents(4_999, CarType.SEDAN, day, day, day));
+        assertEquals(4_999, PricingEngine.toCents(new BigDecimal("49.99")));
+        assertEquals(5_000, PricingEngine.toCents(new BigDecimal("49.995")));
+        assertEquals(new BigDecimal("49.99"), PricingEngine.fromCents(4_999));
+        assertThrows(ArithmeticException.class,
+                () -> pricingEngine.rentalCents(Long.MAX_VALUE / 2, 3));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.carsharingapp.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.config.StripeConfig;
+import com.example.carsharingapp.exceptions.PaymentGatewayUnavailableException;
+import com.example.carsharingapp.payment.config.FakeStripeServer;
+import com.example.carsharingapp.service.StripeCircuitBreaker;
+import com.example.carsharingapp.service.StripeService;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class StripeServiceTest {
+    private FakeStripeServer stripe;
+    private StripeCircuitBreaker circuitBreaker;
+    private SimpleMeterRegistry meterRegistry;
+    private StripeService stripeService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stripe = new FakeStripeServer();
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = FakeStripeServer.circuitBreaker(meterRegistry, 2);
+        stripeService = stripe.stripeService(circuitBreaker, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stripe.close();
+    }
+
+    @Test
+    @DisplayName("Creates a checkout session and sends the idempotency key")
+    void createPaymentSession_success_shouldReturnSession() throws StripeException {
+        Session session = stripeService.createPaymentSession(1_000L, "Car", "key-1");
+
+        assertEquals("cs_test_1", session.getId());
+        assertEquals(List.of("key-1"), stripe.idempotencyKeys());
+        assertEquals(1, meterRegistry.get("stripe.requests")
+                .tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Retries after a server error reuse the same idempotency key")
+    void createPaymentSession_serverErrorThenSuccess_shouldRetryWithSameKey()
+            throws StripeException {
+        stripe.failNextCreate(500);
+
+        Session session = stripeService.createPaymentSession(1_000L, "Car", "key-1");
+
+        assertEquals("cs_test_1", session.getId());
+        assertEquals(List.of("key-1", "key-1"), stripe.idempotencyKeys());
+        assertEquals(StripeCircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+
+    @Test
+    @DisplayName("Open circuit fails fast without calling Stripe")
+    void createPaymentSession_repeatedServerErrors_shouldOpenCircuit() {
+        for (int i = 0; i < 6; i++) {
+            stripe.failNextCreate(503);
+        }
+
+        assertThrows(StripeException.class,
+                () -> stripeService.createPaymentSession(1_000L, "Car", "key-1"));
+        assertThrows(StripeException.class,
+                () -> stripeService.createPaymentSession(1_000L, "Car", "key-2"));
+        int calls = stripe.idempotencyKeys().size();
+
+        assertThrows(PaymentGatewayUnavailableException.class,
+                () -> stripeService.createPaymentSession(1_000L, "Car", "key-3"));
+        assertEquals(calls, stripe.idempotencyKeys().size());
+        assertEquals(StripeCircuitBreaker.State.OPEN, circuitBreaker.state());
+        assertEquals(1, meterRegistry.get("stripe.requests")
+                .tag("outcome", "rejected").timer().count());
+    }
+
+    @Test
+    @DisplayName("An unexpected error in the half-open trial reopens the circuit")
+    void createPaymentSession_runtimeErrorInTrial_shouldReleaseTrial() throws StripeException {
+        StripeClient stripeClient = mock(StripeClient.class, RETURNS_DEEP_STUBS);
+        Session session = new Session();
+        session.setId("cs_test_1");
+        when(stripeClient.checkout().sessions()
+                .create(any(SessionCreateParams.class), any(RequestOptions.class)))
+                .thenThrow(new IllegalStateException("Unexpected response"))
+                .thenReturn(session);
+        ReflectionTestUtils.setField(circuitBreaker, "openDuration", Duration.ZERO);
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        StripeService service = new StripeService(new StripeConfig(), stripeClient,
+                circuitBreaker, meterRegistry);
+
+        assertThrows(IllegalStateException.class, () ->
+                service.createPaymentSession(1_000L, "Car Rental Payment", "key-1"));
+        assertEquals(StripeCircuitBreaker.State.OPEN, circuitBreaker.state());
+
+        assertEquals("cs_test_1", service.createPaymentSession(1_000L,
+                "Car Rental Payment", "key-1").getId());
+        assertEquals(StripeCircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+}
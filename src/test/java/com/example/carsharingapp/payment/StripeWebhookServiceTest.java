@@ -0,0 +1,176 @@
+package com.example.carsharingapp.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.exceptions.WebhookSignatureException;
+import com.example.carsharingapp.model.PaymentStatus;
+import com.example.carsharingapp.model.StripeEvent;
+import com.example.carsharingapp.repository.payment.PaymentOwnerView;
+import com.example.carsharingapp.repository.payment.PaymentRepository;
+import com.example.carsharingapp.repository.payment.StripeEventRepository;
+import com.example.carsharingapp.service.NotificationService;
+import com.example.carsharingapp.service.PendingPaymentIndex;
+import com.example.carsharingapp.service.StripeWebhookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.net.Webhook;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class StripeWebhookServiceTest {
+    private static final String SECRET = "whsec_test";
+
+    @Mock
+    private StripeEventRepository stripeEventRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private PendingPaymentIndex pendingPaymentIndex;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StripeWebhookService webhookService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        webhookService = new StripeWebhookService(stripeEventRepository, paymentRepository,
+                notificationService, pendingPaymentIndex, new ObjectMapper(), transactionManager,
+                meterRegistry);
+        ReflectionTestUtils.setField(webhookService, "webhookSecret", SECRET);
+        ReflectionTestUtils.setField(webhookService, "tolerance", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(webhookService, "batchSize", 100);
+        ReflectionTestUtils.setField(webhookService, "retryDelay", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(webhookService, "maxAttempts", 3);
+    }
+
+    @Test
+    @DisplayName("Signed completed session is queued once and redeliveries are ignored")
+    void receive_signedEvent_shouldQueueAndDeduplicate() throws Exception {
+        String payload = event("evt_1", "checkout.session.completed", "cs_1", "paid");
+        when(stripeEventRepository.insertIfAbsent(eq("evt_1"),
+                eq("checkout.session.completed"), eq("cs_1"), eq("PAID"),
+                any(LocalDateTime.class)))
+                .thenReturn(1, 0);
+
+        webhookService.receive(payload, sign(payload));
+        webhookService.receive(payload, sign(payload));
+
+        assertEquals(1, meterRegistry.counter("stripe.webhook.events",
+                "result", "accepted").count());
+        assertEquals(1, meterRegistry.counter("stripe.webhook.events",
+                "result", "duplicate").count());
+    }
+
+    @Test
+    @DisplayName("Invalid signature and unpaid sessions are not queued")
+    void receive_invalidOrUnpaid_shouldNotQueue() throws Exception {
+        String payload = event("evt_2", "checkout.session.completed", "cs_2", "paid");
+        String unpaid = event("evt_3", "checkout.session.completed", "cs_3", "unpaid");
+
+        assertThrows(WebhookSignatureException.class,
+                () -> webhookService.receive(payload, "t=1,v1=deadbeef"));
+        webhookService.receive(unpaid, sign(unpaid));
+
+        verify(stripeEventRepository, never()).insertIfAbsent(anyString(), anyString(),
+                anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Queued events are applied to payments in one batch")
+    void applyEvents_shouldUpdatePaymentsAndNotify() {
+        StripeEvent paid = stripeEvent("evt_1", "cs_1", PaymentStatus.PAID);
+        StripeEvent expired = stripeEvent("evt_2", "cs_2", PaymentStatus.EXPIRED);
+        when(stripeEventRepository.findDueForUpdate(any(LocalDateTime.class), any(Limit.class)))
+                .thenReturn(List.of(paid, expired));
+        when(paymentRepository.findAttachedSessionIds(Set.of("cs_1", "cs_2")))
+                .thenReturn(List.of("cs_1", "cs_2"));
+        when(paymentRepository.findPendingViewsBySessionIds(Set.of("cs_1")))
+                .thenReturn(List.of(new PaymentOwnerView(7L, 3L, BigDecimal.TEN)));
+        when(paymentRepository.findPendingViewsBySessionIds(Set.of("cs_2")))
+                .thenReturn(List.of(new PaymentOwnerView(8L, 4L, BigDecimal.ONE)));
+
+        webhookService.applyEvents();
+
+        verify(paymentRepository).updatePendingStatus(Set.of("cs_1"), PaymentStatus.PAID);
+        verify(paymentRepository).updatePendingStatus(Set.of("cs_2"), PaymentStatus.EXPIRED);
+        verify(notificationService).notifyPaymentSuccess(7L, 3L, "Amount: 10");
+        verify(notificationService, never()).notifyPaymentSuccess(eq(8L), any(), any());
+        verify(pendingPaymentIndex).paymentSettled(3L, 7L);
+        verify(pendingPaymentIndex).paymentSettled(4L, 8L);
+        verify(stripeEventRepository).markProcessed(eq(List.of("evt_1", "evt_2")),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Events for a session not attached yet are retried later, then given up")
+    void applyEvents_unattachedSession_shouldPostponeUntilMaxAttempts() {
+        StripeEvent early = stripeEvent("evt_1", "cs_1", PaymentStatus.PAID);
+        StripeEvent stale = stripeEvent("evt_2", "cs_2", PaymentStatus.PAID);
+        stale.setAttempts(2);
+        when(stripeEventRepository.findDueForUpdate(any(LocalDateTime.class), any(Limit.class)))
+                .thenReturn(List.of(early, stale));
+        when(paymentRepository.findAttachedSessionIds(Set.of("cs_1", "cs_2")))
+                .thenReturn(List.of());
+
+        webhookService.applyEvents();
+
+        assertEquals(1, early.getAttempts());
+        assertNotNull(early.getNextAttemptAt());
+        assertNull(stale.getNextAttemptAt());
+        verify(paymentRepository, never()).updatePendingStatus(any(), any());
+        verify(stripeEventRepository).markProcessed(eq(List.of("evt_2")),
+                any(LocalDateTime.class));
+        assertEquals(1, meterRegistry.counter("stripe.webhook.events",
+                "result", "unmatched").count());
+    }
+
+    private String event(String id, String type, String sessionId, String paymentStatus) {
+        return """
+                {"id":"%s","object":"event","type":"%s","api_version":"2024-06-20",
+                 "data":{"object":{"id":"%s","object":"checkout.session",
+                 "payment_status":"%s"}}}
+                """.formatted(id, type, sessionId, paymentStatus);
+    }
+
+    private String sign(String payload) throws Exception {
+        long timestamp = System.currentTimeMillis() / 1000;
+        String signature = Webhook.Util.computeHmacSha256(SECRET, timestamp + "." + payload);
+        return "t=" + timestamp + ",v1=" + signature;
+    }
+
+    private StripeEvent stripeEvent(String id, String sessionId, PaymentStatus target) {
+        StripeEvent event = new StripeEvent();
+        event.setId(id);
+        event.setType("checkout.session.completed");
+        event.setSessionId(sessionId);
+        event.setTargetStatus(target);
+        event.setReceivedAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.carsharingapp.payment.config;
+
+import com.example.carsharingapp.config.StripeConfig;
+import com.example.carsharingapp.service.StripeCircuitBreaker;
+import com.example.carsharingapp.service.StripeService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class FakeStripeServer implements AutoCloseable {
+    private static final String SESSIONS_PATH = "/v1/checkout/sessions";
+    private static final String SESSION = """
+            {"id":"%s","object":"checkout.session","status":"%s","payment_status":"%s",
+             "url":"https://checkout.stripe.com/c/pay/%1$s"}
+            """;
+    private static final String SERVER_ERROR = """
+            {"error":{"type":"api_error","message":"Something went wrong"}}
+            """;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong createdSessions = new AtomicLong();
+    private final Queue<Integer> createErrors = new ConcurrentLinkedQueue<>();
+    private final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+    private final Map<String, String> sessionStatuses = new ConcurrentHashMap<>();
+    private final Set<String> expiredSessions = ConcurrentHashMap.newKeySet();
+
+    public FakeStripeServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(SESSIONS_PATH, this::session);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public void handle(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+    }
+
+    public void failNextCreate(int status) {
+        createErrors.add(status);
+    }
+
+    public void sessionStatus(String sessionId, String status) {
+        sessionStatuses.put(sessionId, status);
+    }
+
+    public List<String> idempotencyKeys() {
+        return idempotencyKeys;
+    }
+
+    public Set<String> expiredSessions() {
+        return expiredSessions;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public StripeService stripeService(StripeCircuitBreaker circuitBreaker,
+                                       MeterRegistry meterRegistry) {
+        StripeConfig stripeConfig = new StripeConfig();
+        ReflectionTestUtils.setField(stripeConfig, "stripeSecretKey", "sk_test_123");
+        ReflectionTestUtils.setField(stripeConfig, "successUrl", "http://localhost/success");
+        ReflectionTestUtils.setField(stripeConfig, "cancelUrl", "http://localhost/cancel");
+        ReflectionTestUtils.setField(stripeConfig, "apiBase", baseUrl());
+        ReflectionTestUtils.setField(stripeConfig, "connectTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(stripeConfig, "readTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(stripeConfig, "maxNetworkRetries", 2);
+        return new StripeService(stripeConfig, stripeConfig.stripeClient(), circuitBreaker,
+                meterRegistry);
+    }
+
+    public static StripeCircuitBreaker circuitBreaker(MeterRegistry meterRegistry,
+                                                      int failureThreshold) {
+        StripeCircuitBreaker circuitBreaker = new StripeCircuitBreaker(meterRegistry);
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(circuitBreaker, "openDuration", Duration.ofMinutes(1));
+        return circuitBreaker;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void session(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String[] segments = path.substring(SESSIONS_PATH.length()).split("/");
+        if (segments.length < 2) {
+            idempotencyKeys.add(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+            Integer error = createErrors.poll();
+            if (error != null) {
+                respond(exchange, error, SERVER_ERROR);
+                return;
+            }
+            String sessionId = "cs_test_" + createdSessions.incrementAndGet();
+            respond(exchange, 200, SESSION.formatted(sessionId, "open", "unpaid"));
+            return;
+        }
+        String sessionId = segments[1];
+        if (path.endsWith("/expire")) {
+            expiredSessions.add(sessionId);
+            sessionStatuses.put(sessionId, "expired");
+        }
+        String status = sessionStatuses.getOrDefault(sessionId, "open");
+        respond(exchange, 200, SESSION.formatted(sessionId, status,
+                "complete".equals(status) ? "paid" : "unpaid"));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json)
+            throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.carsharingapp.rental;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.model.Car;
+import com.example.carsharingapp.model.JobCheckpoint;
+import com.example.carsharingapp.model.Rental;
+import com.example.carsharingapp.model.User;
+import com.example.carsharingapp.repository.job.JobCheckpointRepository;
+import com.example.carsharingapp.repository.rental.RentalRepository;
+import com.example.carsharingapp.service.NotificationService;
+import com.example.carsharingapp.service.OverdueCheckService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueCheckServiceTest {
+    private final LocalDate today = LocalDate.now();
+
+    @Mock
+    private RentalRepository rentalRepository;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private JobCheckpointRepository checkpointRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OverdueCheckService overdueCheckService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        overdueCheckService = new OverdueCheckService(rentalRepository, notificationService,
+                checkpointRepository, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(overdueCheckService, "chunkSize", 2);
+        ReflectionTestUtils.setField(overdueCheckService, "notificationMode",
+                OverdueCheckService.NotificationMode.PER_RENTAL);
+    }
+
+    @Test
+    @DisplayName("Scans overdue rentals chunk by chunk and records the checkpoint")
+    void checkOverdueRentals_shouldWalkChunks() {
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.empty());
+        when(rentalRepository.findOverdueChunk(today, 0L, Limit.of(2)))
+                .thenReturn(List.of(rental(3L), rental(5L)));
+        when(rentalRepository.findOverdueChunk(today, 5L, Limit.of(2)))
+                .thenReturn(List.of(rental(8L)));
+
+        overdueCheckService.checkOverdueRentals();
+
+        verify(notificationService, times(3))
+                .notifyOverdueRental(anyLong(), anyLong(), anyString());
+        verify(notificationService, never()).notifyGeneralMessage(anyString());
+        assertEquals(2, meterRegistry.get("overdue.scan.chunk").timer().count());
+        assertEquals(3.0, meterRegistry.get("overdue.scan.rentals").counter().count());
+    }
+
+    @Test
+    @DisplayName("Interrupted scan resumes after the last checkpointed rental")
+    void resumeInterruptedScan_shouldContinueFromCheckpoint() {
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setJobName("overdue-check");
+        checkpoint.setRunDate(today);
+        checkpoint.setLastId(5L);
+        checkpoint.setProcessed(2);
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.of(checkpoint));
+        when(rentalRepository.findOverdueChunk(today, 5L, Limit.of(2)))
+                .thenReturn(List.of(rental(8L)));
+
+        overdueCheckService.resumeInterruptedScan();
+
+        verify(rentalRepository, never()).findOverdueChunk(eq(today), eq(0L), any());
+        verify(notificationService).notifyOverdueRental(eq(8L), anyLong(), anyString());
+        assertEquals(8L, checkpoint.getLastId());
+        assertEquals(3, checkpoint.getProcessed());
+        assertTrue(checkpoint.isCompleted());
+    }
+
+    @Test
+    @DisplayName("Completed scan for today is not repeated")
+    void checkOverdueRentals_completedToday_shouldSkip() {
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setRunDate(today);
+        checkpoint.setCompleted(true);
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.of(checkpoint));
+
+        overdueCheckService.checkOverdueRentals();
+
+        verify(rentalRepository, never()).findOverdueChunk(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("A scan waiting for the lock reads the checkpoint left by the running scan")
+    void checkOverdueRentals_waitingForRunningScan_shouldLoadCheckpointUnderLock()
+            throws InterruptedException {
+        JobCheckpoint finished = new JobCheckpoint();
+        finished.setRunDate(today);
+        finished.setCompleted(true);
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.of(finished));
+        ReentrantLock scanLock = (ReentrantLock) ReflectionTestUtils.getField(
+                overdueCheckService, "scanLock");
+        Thread waiting = new Thread(overdueCheckService::checkOverdueRentals);
+
+        scanLock.lock();
+        try {
+            waiting.start();
+            for (int i = 0; i < 200 && !scanLock.hasQueuedThread(waiting); i++) {
+                Thread.sleep(10);
+            }
+            verify(checkpointRepository, never()).findById(anyString());
+        } finally {
+            scanLock.unlock();
+        }
+        waiting.join();
+
+        verify(checkpointRepository).findById("overdue-check");
+        verify(rentalRepository, never()).findOverdueChunk(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Digest mode packs overdue rentals into one message")
+    void checkOverdueRentals_digestMode_shouldSendOneMessage() {
+        enableDigest(10);
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.empty());
+        when(rentalRepository.findOverdueChunk(today, 0L, Limit.of(2)))
+                .thenReturn(List.of(rental(3L), rental(5L)));
+        when(rentalRepository.findOverdueChunk(today, 5L, Limit.of(2)))
+                .thenReturn(List.of(rental(8L)));
+
+        overdueCheckService.checkOverdueRentals();
+
+        verify(notificationService).notifyOverdueDigest(argThat(digest ->
+                digest.contains("#3 ") && digest.contains("#8 ")
+                        && digest.contains("Total overdue: 3")));
+        verify(notificationService, never()).notifyOverdueRental(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Digest rows buffered before a crash are sent by the resumed scan")
+    void resumeInterruptedScan_digestMode_shouldKeepBufferedRows() {
+        enableDigest(10);
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.empty());
+        when(rentalRepository.findOverdueChunk(today, 0L, Limit.of(2)))
+                .thenReturn(List.of(rental(3L), rental(5L)));
+        when(rentalRepository.findOverdueChunk(today, 5L, Limit.of(2)))
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(List.of(rental(8L)));
+        ArgumentCaptor<JobCheckpoint> saved = ArgumentCaptor.forClass(JobCheckpoint.class);
+
+        assertThrows(IllegalStateException.class,
+                () -> overdueCheckService.checkOverdueRentals());
+        verify(checkpointRepository).save(saved.capture());
+        verify(notificationService, never()).notifyOverdueDigest(anyString());
+        when(checkpointRepository.findById("overdue-check"))
+                .thenReturn(Optional.of(saved.getValue()));
+        overdueCheckService.resumeInterruptedScan();
+
+        verify(notificationService).notifyOverdueDigest(argThat(digest ->
+                digest.contains("#3 ") && digest.contains("#5 ") && digest.contains("#8 ")
+                        && digest.contains("Total overdue: 3")));
+        assertTrue(saved.getValue().isCompleted());
+    }
+
+    @Test
+    @DisplayName("Digest respects the Telegram length limit and the message cap")
+    void checkOverdueRentals_largeDigest_shouldSplitAndCap() {
+        enableDigest(3);
+        ReflectionTestUtils.setField(overdueCheckService, "chunkSize", 500);
+        List<Rental> rentals = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            rentals.add(rental(id));
+        }
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.empty());
+        when(rentalRepository.findOverdueChunk(today, 0L, Limit.of(500))).thenReturn(rentals);
+
+        overdueCheckService.checkOverdueRentals();
+
+        verify(notificationService, times(4))
+                .notifyOverdueDigest(argThat(digest -> digest.length() <= 4096 - 64));
+        verify(notificationService).notifyOverdueDigest(argThat(digest ->
+                digest.contains("Total overdue: 300") && digest.contains("not listed")));
+    }
+
+    @Test
+    @DisplayName("CSV report is built after the scan and attached when it fits")
+    void checkOverdueRentals_attachCsv_shouldSendReportAfterScan() {
+        enableReport(DataSize.ofKilobytes(1));
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.empty());
+        when(rentalRepository.findOverdueChunk(today, 0L, Limit.of(2)))
+                .thenReturn(List.of(rental(3L), rental(5L)));
+        when(rentalRepository.findOverdueChunk(today, 5L, Limit.of(2)))
+                .thenReturn(List.of(rental(8L)));
+
+        overdueCheckService.checkOverdueRentals();
+
+        verify(notificationService).notifyOverdueReport(
+                eq("overdue-rentals-" + today + ".csv"),
+                argThat(csv -> new String(csv, StandardCharsets.UTF_8).lines().count() == 4),
+                eq("Overdue rentals: 3"));
+        verify(notificationService).notifyOverdueDigest(argThat(digest ->
+                digest.contains("Total overdue: 3, full list attached")));
+        verify(rentalRepository, times(2)).findOverdueChunk(today, 5L, Limit.of(2));
+    }
+
+    @Test
+    @DisplayName("Report over the size cap is replaced by a note in the digest")
+    void checkOverdueRentals_reportTooLarge_shouldOnlyNoteIt() {
+        enableReport(DataSize.ofBytes(100));
+        when(checkpointRepository.findById("overdue-check")).thenReturn(Optional.empty());
+        when(rentalRepository.findOverdueChunk(today, 0L, Limit.of(2)))
+                .thenReturn(List.of(rental(3L), rental(5L)));
+        when(rentalRepository.findOverdueChunk(today, 5L, Limit.of(2)))
+                .thenReturn(List.of(rental(8L)));
+
+        overdueCheckService.checkOverdueRentals();
+
+        verify(notificationService, never()).notifyOverdueReport(any(), any(), any());
+        verify(notificationService).notifyOverdueDigest(argThat(digest ->
+                digest.contains("Total overdue: 3, full list too large to attach")));
+    }
+
+    private void enableReport(DataSize maxSize) {
+        enableDigest(10);
+        ReflectionTestUtils.setField(overdueCheckService, "digestAttachCsv", true);
+        ReflectionTestUtils.setField(overdueCheckService, "digestAttachMaxSize", maxSize);
+    }
+
+    private void enableDigest(int maxMessages) {
+        ReflectionTestUtils.setField(overdueCheckService, "notificationMode",
+                OverdueCheckService.NotificationMode.DIGEST);
+        ReflectionTestUtils.setField(overdueCheckService, "digestMaxMessages", maxMessages);
+    }
+
+    private Rental rental(Long id) {
+        User user = new User();
+        user.setId(1L);
+        user.setFirstName("Bob");
+        user.setLastName("Smith");
+        Car car = new Car();
+        car.setId(2L);
+        car.setModel("Model_3");
+        Rental rental = new Rental();
+        rental.setId(id);
+        rental.setUser(user);
+        rental.setCar(car);
+        rental.setReturnDate(today.minusDays(2));
+        return rental;
+    }
+}
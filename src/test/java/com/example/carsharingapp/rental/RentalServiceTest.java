@@ -3,36 +3,61 @@ package com.example.carsharingapp.rental;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.example.carsharingapp.dto.page.CursorPageResponseDto;
+import com.example.carsharingapp.dto.page.PageCursor;
 import com.example.carsharingapp.dto.rental.CreateRentalRequestDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteItemDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteRequestDto;
+import com.example.carsharingapp.dto.rental.RentalQuoteResponseDto;
 import com.example.carsharingapp.dto.rental.RentalResponseDto;
 import com.example.carsharingapp.exceptions.EntityNotFoundException;
+import com.example.carsharingapp.exceptions.InvalidCursorException;
+import com.example.carsharingapp.exceptions.InvalidDateRangeException;
+import com.example.carsharingapp.exceptions.PendingPaymentsException;
 import com.example.carsharingapp.mapper.RentalMapper;
 import com.example.carsharingapp.model.Car;
+import com.example.carsharingapp.model.CarType;
 import com.example.carsharingapp.model.Rental;
 import com.example.carsharingapp.model.User;
 import com.example.carsharingapp.repository.car.CarRepository;
-import com.example.carsharingapp.repository.payment.PaymentRepository;
 import com.example.carsharingapp.repository.rental.RentalRepository;
+import com.example.carsharingapp.repository.user.UserRepository;
+import com.example.carsharingapp.service.CarAvailabilityService;
 import com.example.carsharingapp.service.NotificationService;
+import com.example.carsharingapp.service.PendingPaymentIndex;
+import com.example.carsharingapp.service.PricingEngine;
 import com.example.carsharingapp.service.RentalServiceImpl;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -50,7 +75,18 @@ public class RentalServiceTest {
     @Mock
     private NotificationService notificationService;
     @Mock
-    private PaymentRepository paymentRepository;
+    private PendingPaymentIndex pendingPaymentIndex;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private Cache cache;
+    @Mock
+    private CarAvailabilityService carAvailabilityService;
+    @Mock
+    private UserRepository userRepository;
+    @Spy
+    private PricingEngine pricingEngine = new PricingEngine(new BigDecimal("0.2"),
+            new BigDecimal("0.2"), new BigDecimal("0.2"), new BigDecimal("0.2"));
 
     @InjectMocks
     private RentalServiceImpl rentalService;
@@ -82,19 +118,24 @@ public class RentalServiceTest {
         expectedDto.setId(10L);
 
         when(carRepository.findById(1L)).thenReturn(Optional.of(car));
+        when(cacheManager.getCache(anyString())).thenReturn(cache);
+        when(carRepository.reserveUnit(1L)).thenReturn(1);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(rentalRepository.save(any(Rental.class))).thenReturn(savedRental);
-        when(carRepository.save(any(Car.class))).thenReturn(car);
         when(rentalMapper.toDto(any(Rental.class))).thenReturn(expectedDto);
 
         doNothing().when(notificationService)
                 .notifyNewRental(any(), anyLong(), anyString());
 
-        RentalResponseDto result = rentalService.createRental(user, requestDto);
+        RentalResponseDto result = rentalService.createRental(user.getId(), requestDto);
 
         assertEquals(expectedDto.getId(), result.getId());
         verify(carRepository).findById(1L);
+        verify(carRepository).reserveUnit(1L);
         verify(rentalRepository).save(any(Rental.class));
-        verify(carRepository).save(car);
+        verify(cache).evict(1L);
+        verify(cache).clear();
+        verify(carAvailabilityService).rentalStarted(any(Rental.class));
         verify(rentalMapper).toDto(any(Rental.class));
     }
 
@@ -110,7 +151,7 @@ public class RentalServiceTest {
         when(carRepository.findById(999L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class,
-                () -> rentalService.createRental(user, request));
+                () -> rentalService.createRental(user.getId(), request));
 
         verify(rentalRepository, never()).save(any());
     }
@@ -129,42 +170,109 @@ public class RentalServiceTest {
         request.setCarId(1L);
 
         when(carRepository.findById(1L)).thenReturn(Optional.of(car));
-        when(paymentRepository.existsByRental_User_IdAndStatus(anyLong(), any()))
-                .thenReturn(false);
+        when(pendingPaymentIndex.hasPending(1L)).thenReturn(false);
+        when(carRepository.reserveUnit(1L)).thenReturn(0);
 
         assertThrows(IllegalStateException.class,
-                () -> rentalService.createRental(user, request));
+                () -> rentalService.createRental(user.getId(), request));
     }
 
     @Test
-    @DisplayName("Should return user's rentals")
-    void getUserRentals_shouldReturnPage() {
-        User user = new User();
-        user.setId(1L);
+    @DisplayName("Should reject a rental while the user has pending payments and notify")
+    void createRental_shouldThrowIfPaymentsPending() {
+        Car car = new Car();
+        car.setId(1L);
+
+        CreateRentalRequestDto request = new CreateRentalRequestDto();
+        request.setCarId(1L);
+
+        when(carRepository.findById(1L)).thenReturn(Optional.of(car));
+        when(pendingPaymentIndex.hasPending(1L)).thenReturn(true);
+
+        assertThrows(PendingPaymentsException.class,
+                () -> rentalService.createRental(1L, request));
+        verify(notificationService).notifyGeneralMessage(anyString());
+        verify(carRepository, never()).reserveUnit(anyLong());
+    }
 
+    @Test
+    @DisplayName("Should quote several cars and dates in one call")
+    void quoteRentals_shouldPriceEachItem() {
+        Car sedan = new Car();
+        sedan.setId(1L);
+        sedan.setType(CarType.SEDAN);
+        sedan.setDailyFee(new BigDecimal("49.99"));
+        Car suv = new Car();
+        suv.setId(2L);
+        suv.setType(CarType.SUV);
+        suv.setDailyFee(new BigDecimal("80.00"));
+        LocalDate from = LocalDate.of(2026, 1, 10);
+
+        RentalQuoteRequestDto request = new RentalQuoteRequestDto();
+        request.setItems(List.of(
+                quoteItem(1L, from, from.plusDays(3)),
+                quoteItem(2L, from, from),
+                quoteItem(1L, from, from.plusDays(1))));
+        when(carRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(sedan, suv));
+
+        List<RentalQuoteResponseDto> quotes = rentalService.quoteRentals(request);
+
+        assertEquals(List.of(new BigDecimal("149.97"), new BigDecimal("80.00"),
+                        new BigDecimal("49.99")),
+                quotes.stream().map(RentalQuoteResponseDto::getAmount).toList());
+    }
+
+    @Test
+    @DisplayName("Should reject quotes with the return date before the rental date")
+    void quoteRentals_invertedDates_shouldThrow() {
         Car car = new Car();
         car.setId(1L);
+        car.setDailyFee(BigDecimal.TEN);
+        LocalDate from = LocalDate.of(2026, 1, 10);
 
-        Rental rental = new Rental();
-        rental.setId(5L);
-        rental.setUser(user);
-        rental.setCar(car);
-        rental.setActive(true);
+        RentalQuoteRequestDto request = new RentalQuoteRequestDto();
+        request.setItems(List.of(quoteItem(1L, from, from.minusDays(1))));
+        when(carRepository.findAllById(List.of(1L))).thenReturn(List.of(car));
+
+        assertThrows(InvalidDateRangeException.class,
+                () -> rentalService.quoteRentals(request));
+    }
+
+    @Test
+    @DisplayName("Should reject a quote request with a null item before pricing")
+    void quoteRequest_nullItem_shouldFailValidation() {
+        LocalDate from = LocalDate.of(2026, 1, 10);
+        RentalQuoteRequestDto request = new RentalQuoteRequestDto();
+        request.setItems(Arrays.asList(quoteItem(1L, from, from.plusDays(1)), null));
+
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            Set<ConstraintViolation<RentalQuoteRequestDto>> violations =
+                    factory.getValidator().validate(request);
+
+            assertEquals(1, violations.size());
+            assertEquals("items[1].<list element>",
+                    violations.iterator().next().getPropertyPath().toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Should return user's rentals")
+    void getUserRentals_shouldReturnPage() {
+        User user = new User();
+        user.setId(1L);
 
         Pageable pageable = PageRequest.of(0, 5);
-        Page<Rental> rentalsPage = new PageImpl<>(List.of(rental));
 
         RentalResponseDto dto = new RentalResponseDto();
         dto.setId(5L);
 
-        when(rentalRepository.findAllByUserIdAndActive(1L, true, pageable))
-                .thenReturn(rentalsPage);
-        when(rentalMapper.toDto(rental)).thenReturn(dto);
+        when(rentalRepository.findUserRentalPage(1L, true, pageable))
+                .thenReturn(new PageImpl<>(List.of(dto)));
 
         Page<RentalResponseDto> result = rentalService.getUserRentals(1L, true, pageable);
 
         assertEquals(1, result.getTotalElements());
-        verify(rentalRepository).findAllByUserIdAndActive(1L, true, pageable);
+        verify(rentalRepository).findUserRentalPage(1L, true, pageable);
     }
 
     @Test
@@ -238,16 +346,18 @@ public class RentalServiceTest {
         dto.setId(1L);
 
         when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
-        when(rentalRepository.save(rental)).thenReturn(rental);
-        when(carRepository.save(car)).thenReturn(car);
+        when(rentalRepository.closeRental(eq(1L), any(LocalDate.class))).thenReturn(1);
         when(rentalMapper.toDto(rental)).thenReturn(dto);
+        when(cacheManager.getCache(anyString())).thenReturn(cache);
 
         RentalResponseDto result = rentalService.returnCar(1L, 1L);
 
         assertNotNull(result);
         assertFalse(rental.isActive());
-        verify(carRepository).save(car);
-        verify(rentalRepository).save(rental);
+        verify(carRepository).releaseUnit(1L);
+        verify(cache).evict(1L);
+        verify(cache).clear();
+        verify(carAvailabilityService).rentalClosed(1L, 1L);
     }
 
     @Test
@@ -269,4 +379,84 @@ public class RentalServiceTest {
         assertThrows(AccessDeniedException.class,
                 () -> rentalService.returnCar(1L, anotherUser.getId()));
     }
+
+    @Test
+    @DisplayName("Should not release inventory when rental was closed concurrently")
+    void returnCar_closedConcurrently_shouldThrow() {
+        User user = new User();
+        user.setId(1L);
+
+        Rental rental = new Rental();
+        rental.setId(1L);
+        rental.setUser(user);
+        rental.setActive(true);
+
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        when(rentalRepository.closeRental(eq(1L), any(LocalDate.class))).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> rentalService.returnCar(1L, 1L));
+
+        verify(carRepository, never()).releaseUnit(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should return first cursor page with a cursor to the next one")
+    void getUserRentalsAfter_firstPage_shouldReturnNextCursor() {
+        Rental first = new Rental();
+        first.setId(3L);
+        first.setRentalDate(LocalDate.of(2025, 1, 1));
+        Rental second = new Rental();
+        second.setId(7L);
+        second.setRentalDate(LocalDate.of(2025, 1, 2));
+        Rental extra = new Rental();
+        extra.setId(9L);
+        extra.setRentalDate(LocalDate.of(2025, 1, 3));
+
+        when(rentalRepository.findAllByUserIdAndActiveOrderByRentalDateAscIdAsc(
+                1L, true, Limit.of(3)))
+                .thenReturn(List.of(first, second, extra));
+        when(rentalMapper.toDto(any(Rental.class))).thenReturn(new RentalResponseDto());
+
+        CursorPageResponseDto<RentalResponseDto> result =
+                rentalService.getUserRentalsAfter(1L, true, null, 2);
+
+        assertEquals(2, result.content().size());
+        assertTrue(result.hasNext());
+        assertEquals(new PageCursor(LocalDate.of(2025, 1, 2), 7L),
+                PageCursor.decode(result.nextCursor()));
+    }
+
+    @Test
+    @DisplayName("Should seek past the cursor position on following pages")
+    void getUserRentalsAfter_withCursor_shouldSeek() {
+        String after = PageCursor.encode(LocalDate.of(2025, 1, 2), 7L);
+
+        when(rentalRepository.findUserRentalsAfter(
+                1L, true, LocalDate.of(2025, 1, 2), 7L, Limit.of(3)))
+                .thenReturn(List.of());
+
+        CursorPageResponseDto<RentalResponseDto> result =
+                rentalService.getUserRentalsAfter(1L, true, after, 2);
+
+        assertTrue(result.content().isEmpty());
+        assertFalse(result.hasNext());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject a cursor issued by another listing")
+    void getUserRentalsAfter_withForeignCursor_shouldThrow() {
+        String carCursor = PageCursor.encode(5L);
+
+        assertThrows(InvalidCursorException.class,
+                () -> rentalService.getUserRentalsAfter(1L, true, carCursor, 2));
+    }
+
+    private RentalQuoteItemDto quoteItem(Long carId, LocalDate from, LocalDate to) {
+        RentalQuoteItemDto item = new RentalQuoteItemDto();
+        item.setCarId(carId);
+        item.setRentalDate(from);
+        item.setReturnDate(to);
+        return item;
+    }
 }
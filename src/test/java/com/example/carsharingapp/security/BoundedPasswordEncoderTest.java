@@ -0,0 +1,50 @@
+package com.example.carsharingapp.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.carsharingapp.exceptions.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BoundedPasswordEncoderTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Hashing runs on the pool, is timed and flags weaker hashes for upgrade")
+    void encodeAndMatches_shouldRecordLatencyAndDetectUpgrade() {
+        try (BoundedPasswordEncoder weak = encoder("weak", 4, Duration.ofSeconds(5));
+                BoundedPasswordEncoder strong = encoder("strong", 5, Duration.ofSeconds(5))) {
+            String hash = weak.encode("secret");
+
+            assertTrue(weak.matches("secret", hash));
+            assertFalse(weak.matches("other", hash));
+            assertFalse(weak.upgradeEncoding(hash));
+            assertTrue(strong.upgradeEncoding(hash));
+            assertEquals(2, meterRegistry.get("password.hash")
+                    .tags("name", "weak", "operation", "matches").timer().count());
+            assertEquals(2, meterRegistry.get("password.hash.queue").gauges().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Saturated pool fails fast with a retry hint instead of queueing forever")
+    void encode_slowerThanMaxWait_shouldRejectWithRetryAfter() {
+        try (BoundedPasswordEncoder encoder = encoder("slow", 14, Duration.ofMillis(1))) {
+            PasswordHashingBusyException ex = assertThrows(PasswordHashingBusyException.class,
+                    () -> encoder.encode("secret"));
+
+            assertEquals(Duration.ofSeconds(1), ex.getRetryAfter());
+            assertEquals(1.0, meterRegistry.get("password.hash.rejected").counter().count());
+        }
+    }
+
+    private BoundedPasswordEncoder encoder(String poolName, int strength, Duration maxWait) {
+        return new BoundedPasswordEncoder(poolName, strength, 1, 1, maxWait,
+                Duration.ofSeconds(1), meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.carsharingapp.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtUtilTest {
+    private static final String SECRET = "mySuperSecretString100200300needLongerKey100200300";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 100);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+    }
+
+    @Test
+    @DisplayName("Verified tokens are reused for the same token")
+    void parseVerifiedToken_sameToken_shouldReturnCachedToken() {
+        String token = jwtUtil.generateToken("bob@example.com");
+
+        JwtUtil.VerifiedToken first = jwtUtil.parseVerifiedToken(token);
+
+        assertEquals("bob@example.com", first.subject());
+        assertSame(first, jwtUtil.parseVerifiedToken(token));
+    }
+
+    @Test
+    @DisplayName("Tampered and expired tokens are rejected")
+    void parseVerifiedToken_invalidToken_shouldThrow() {
+        String token = jwtUtil.generateToken("bob@example.com");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("A") ? "BB" : "AA");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", -1_000L);
+        String expired = jwtUtil.generateToken("bob@example.com");
+
+        JwtException invalid = assertThrows(JwtException.class,
+                () -> jwtUtil.parseVerifiedToken(tampered));
+        assertThrows(JwtException.class, () -> jwtUtil.parseVerifiedToken(expired));
+        assertNotNull(invalid.getCause());
+    }
+}
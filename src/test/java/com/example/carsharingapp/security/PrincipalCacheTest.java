@@ -0,0 +1,72 @@
+package com.example.carsharingapp.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.carsharingapp.exceptions.EntityNotFoundException;
+import com.example.carsharingapp.model.Role;
+import com.example.carsharingapp.model.User;
+import com.example.carsharingapp.repository.user.UserRepository;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache(userRepository, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Principal is loaded once and carries no password hash")
+    void get_repeated_shouldHitRepositoryOnce() {
+        when(userRepository.findByEmail("bob@example.com")).thenReturn(Optional.of(user()));
+
+        UserPrincipal principal = principalCache.get("bob@example.com");
+        principalCache.get("bob@example.com");
+
+        assertEquals(new UserPrincipal(7L, "bob@example.com", Role.ROLE_CUSTOMER, true, null),
+                principal);
+        assertNull(principal.getPassword());
+        verify(userRepository, times(1)).findByEmail("bob@example.com");
+    }
+
+    @Test
+    @DisplayName("Evicted principal is reloaded and unknown users are rejected")
+    void evict_shouldReloadOnNextRequest() {
+        when(userRepository.findByEmail("bob@example.com")).thenReturn(Optional.of(user()));
+        when(userRepository.findByEmail("ghost@example.com")).thenReturn(Optional.empty());
+
+        principalCache.get("bob@example.com");
+        principalCache.evict("bob@example.com");
+        principalCache.get("bob@example.com");
+
+        verify(userRepository, times(2)).findByEmail("bob@example.com");
+        assertThrows(EntityNotFoundException.class,
+                () -> principalCache.get("ghost@example.com"));
+    }
+
+    private User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("bob@example.com");
+        user.setPassword("$2a$10$hash");
+        user.setRole(Role.ROLE_CUSTOMER);
+        return user;
+    }
+}